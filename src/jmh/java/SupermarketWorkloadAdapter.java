@@ -0,0 +1,59 @@
+import benchmarks.SupermarketWorkload;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalTime;
+
+/**
+ * gives the benchmarks access to the supermarket simulation in the default package
+ */
+public class SupermarketWorkloadAdapter implements SupermarketWorkload {
+    private static final long SEED = 20191001L;    // every benchmark run works on the same random customers
+
+    private Supermarket supermarket;
+
+    @Override
+    public void generate(int nCustomers, int averageNrItems) {
+        supermarket = Supermarket.importFromXML("supermarket25.xml");
+        supermarket.setOpenTime(LocalTime.of(8, 0));
+        supermarket.setClosingTime(LocalTime.of(22, 0));
+        supermarket.addRandomCustomers(nCustomers, averageNrItems, SEED);
+    }
+
+    @Override
+    public void configureCashiers(String mix, int nCashiers) {
+        supermarket.getCashiers().clear();
+        for (int i = 0; i < nCashiers; i++) {
+            boolean priority = mix.equals("PRIO") || (mix.equals("MIXED") && i % 2 == 1);
+            supermarket.getCashiers().add(priority ? new PriorityCashier("PRIO-" + i, 5) : new FIFOCashier("FIFO-" + i));
+        }
+    }
+
+    @Override
+    public void simulateCashiers() {
+        supermarket.simulateCashiers();
+    }
+
+    @Override
+    public Object revenueByZipCode() {
+        return supermarket.revenueByZipCode();
+    }
+
+    @Override
+    public Object mostBoughtProductByZipCode() {
+        return supermarket.mostBoughtProductByZipCode();
+    }
+
+    @Override
+    public void exportXML(String fileName) {
+        supermarket.exportXML(fileName);
+    }
+
+    @Override
+    public Object importFromXML(String fileName) throws IOException {
+        try (InputStream inputStream = new FileInputStream(fileName)) {
+            return Supermarket.importFromXML(fileName, inputStream);
+        }
+    }
+}
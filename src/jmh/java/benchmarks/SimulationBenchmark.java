@@ -0,0 +1,40 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * throughput of a complete cashier simulation of a day of random customers
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SimulationBenchmark {
+
+    @Param({"250", "10000", "1000000", "10000000"})
+    public int customers;
+
+    @Param({"8", "200"})
+    public int cashiers;
+
+    @Param({"FIFO", "PRIO", "MIXED"})
+    public String mix;
+
+    private SupermarketWorkload workload;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        workload = SupermarketWorkload.create();
+        workload.generate(customers, 8);
+        workload.configureCashiers(mix, cashiers);
+    }
+
+    @Benchmark
+    public void simulateCashiers() {
+        workload.simulateCashiers();
+    }
+}
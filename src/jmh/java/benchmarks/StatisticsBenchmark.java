@@ -0,0 +1,38 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * throughput of the customer statistics per zip-code
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StatisticsBenchmark {
+
+    @Param({"250", "10000", "1000000", "10000000"})
+    public int customers;
+
+    private SupermarketWorkload workload;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        workload = SupermarketWorkload.create();
+        workload.generate(customers, 8);
+    }
+
+    @Benchmark
+    public Object revenueByZipCode() {
+        return workload.revenueByZipCode();
+    }
+
+    @Benchmark
+    public Object mostBoughtProductByZipCode() {
+        return workload.mostBoughtProductByZipCode();
+    }
+}
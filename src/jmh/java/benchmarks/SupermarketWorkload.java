@@ -0,0 +1,49 @@
+package benchmarks;
+
+import java.io.IOException;
+
+/**
+ * the operations of the supermarket simulation that are being benchmarked
+ * JMH does not accept benchmarks in the default package, and a named package cannot refer
+ * to the supermarket classes in the default package, so the benchmarks call them through this interface
+ */
+public interface SupermarketWorkload {
+
+    /**
+     * creates the workload implementation that lives next to the supermarket classes in the default package
+     * @return
+     */
+    static SupermarketWorkload create() {
+        try {
+            return (SupermarketWorkload) Class.forName("SupermarketWorkloadAdapter")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create the supermarket workload", e);
+        }
+    }
+
+    /**
+     * sets up a supermarket with the products of supermarket25.xml
+     * and a number of random customers over a full day
+     * @param nCustomers
+     * @param averageNrItems
+     */
+    void generate(int nCustomers, int averageNrItems);
+
+    /**
+     * configures the cashiers of the supermarket
+     * @param mix       FIFO, PRIO or MIXED
+     * @param nCashiers
+     */
+    void configureCashiers(String mix, int nCashiers);
+
+    void simulateCashiers();
+
+    Object revenueByZipCode();
+
+    Object mostBoughtProductByZipCode();
+
+    void exportXML(String fileName);
+
+    Object importFromXML(String fileName) throws IOException;
+}
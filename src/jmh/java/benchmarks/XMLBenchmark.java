@@ -0,0 +1,51 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * throughput of loading and saving a supermarket configuration as XML
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class XMLBenchmark {
+
+    @Param({"250", "10000", "1000000", "10000000"})
+    public int customers;
+
+    private SupermarketWorkload workload;
+    private File importFile;
+    private File exportFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        workload = SupermarketWorkload.create();
+        workload.generate(customers, 8);
+        importFile = File.createTempFile("supermarket-import", ".xml");
+        exportFile = File.createTempFile("supermarket-export", ".xml");
+        workload.exportXML(importFile.getPath());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        importFile.delete();
+        exportFile.delete();
+    }
+
+    @Benchmark
+    public Object importFromXML() throws IOException {
+        return workload.importFromXML(importFile.getPath());
+    }
+
+    @Benchmark
+    public void exportXML() {
+        workload.exportXML(exportFile.getPath());
+    }
+}
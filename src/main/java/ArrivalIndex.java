@@ -0,0 +1,86 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.List;
+
+/**
+ * the customers of a dataset in order of their arrival time
+ * arrival times are seconds within a day, so the order is found by a counting sort in O(customers + seconds of a day),
+ * without comparing customers. the sort is stable: customers arriving in the same second keep their order
+ * in the dataset. the index only holds the positions of the customers, so it can be built once for a dataset
+ * and shared by every copy of its customers that keeps the same order
+ */
+public class ArrivalIndex {
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final int[] order;          // positions of the customers in order of arrival
+    private final int[] arrivals;       // arrival time per customer in order of arrival, in seconds of the day
+
+    private ArrivalIndex(int[] secondsOfDay, int size) {
+        // count the arrivals per second, then turn the counts into the first index of every second
+        int[] firstIndex = new int[SECONDS_PER_DAY + 1];
+        for (int c = 0; c < size; c++) {
+            firstIndex[secondsOfDay[c] + 1]++;
+        }
+        for (int s = 0; s < SECONDS_PER_DAY; s++) {
+            firstIndex[s + 1] += firstIndex[s];
+        }
+        this.order = new int[size];
+        this.arrivals = new int[size];
+        for (int c = 0; c < size; c++) {
+            int i = firstIndex[secondsOfDay[c]]++;
+            order[i] = c;
+            arrivals[i] = secondsOfDay[c];
+        }
+    }
+
+    /**
+     * @param customers
+     * @return the index of the customers in the given list
+     */
+    public static ArrivalIndex of(List<Customer> customers) {
+        int[] secondsOfDay = new int[customers.size()];
+        for (int c = 0; c < secondsOfDay.length; c++) {
+            secondsOfDay[c] = customers.get(c).getQueuedAt().toSecondOfDay();
+        }
+        return new ArrivalIndex(secondsOfDay, secondsOfDay.length);
+    }
+
+    /**
+     * @param secondsOfDay  arrival time per customer, between 0 and the number of seconds of a day
+     * @param size          number of customers
+     * @return the index of the customers with the given arrival times
+     */
+    public static ArrivalIndex of(int[] secondsOfDay, int size) {
+        return new ArrivalIndex(secondsOfDay, size);
+    }
+
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * @param i     rank in order of arrival
+     * @return the position of the i-th arriving customer in the dataset
+     */
+    public int getCustomer(int i) {
+        return order[i];
+    }
+
+    /**
+     * @param i     rank in order of arrival
+     * @return the arrival time of the i-th arriving customer in seconds of the day
+     */
+    public int getArrivalSecondOfDay(int i) {
+        return arrivals[i];
+    }
+
+    /**
+     * @return a copy of the positions of all customers in order of arrival
+     */
+    public int[] toArray() {
+        return order.clone();
+    }
+}
@@ -0,0 +1,317 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import utils.SimulationMetrics;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * a supermarket configuration in a compact binary, columnar format
+ * times are stored as int seconds of the day, prices as int cents,
+ * zip-codes as indices into a zip-code table and purchased products as indices into the product table.
+ * a dataset file is opened through memory mapping, so the columns are read straight from the file
+ * without parsing, and the operating system can share the pages between simulation processes.
+ *
+ * file layout (big-endian):
+ *   header:    magic, version, openTime, closingTime, nProducts, nCustomers, nPurchases
+ *   products:  priceCents[nProducts], code strings, description strings
+ *   zip-codes: nZipCodes, zip-code strings
+ *   customers: arrivalSecondOfDay[nCustomers], zipCodeIndex[nCustomers], firstPurchase[nCustomers+1]
+ *   purchases: productIndex[nPurchases], amount[nPurchases]
+ * a string table is stored as offsets[n+1] into a UTF-8 block of offsets[n] bytes
+ * every column needs to fit within 2GB
+ */
+public class BinaryDataset {
+    private static final int MAGIC = 0x534D4B54;    // "SMKT"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 7;
+
+    private final int openTime;             // in seconds of the day
+    private final int closingTime;          // in seconds of the day
+    private final int numberOfProducts;
+    private final int numberOfCustomers;
+    private final int numberOfPurchases;
+    private final IntBuffer priceCents;
+    private final StringTable productCodes;
+    private final StringTable productDescriptions;
+    private final StringTable zipCodes;
+    private final IntBuffer arrivals;
+    private final IntBuffer zipCodeIndices;
+    private final IntBuffer firstPurchases;
+    private final IntBuffer productIndices;
+    private final IntBuffer amounts;
+
+    private BinaryDataset(FileChannel channel) throws IOException {
+        long position = 0;
+        IntBuffer header = mapInts(channel, position, HEADER_INTS);
+        position += HEADER_INTS * 4L;
+        if (header.get(0) != MAGIC || header.get(1) != VERSION) {
+            throw new IOException("Not a supermarket dataset of version " + VERSION);
+        }
+        openTime = header.get(2);
+        closingTime = header.get(3);
+        numberOfProducts = header.get(4);
+        numberOfCustomers = header.get(5);
+        numberOfPurchases = header.get(6);
+
+        priceCents = mapInts(channel, position, numberOfProducts);
+        position += numberOfProducts * 4L;
+        productCodes = new StringTable(channel, position, numberOfProducts);
+        position += productCodes.sizeInBytes();
+        productDescriptions = new StringTable(channel, position, numberOfProducts);
+        position += productDescriptions.sizeInBytes();
+
+        int numberOfZipCodes = mapInts(channel, position, 1).get(0);
+        position += 4;
+        zipCodes = new StringTable(channel, position, numberOfZipCodes);
+        position += zipCodes.sizeInBytes();
+
+        arrivals = mapInts(channel, position, numberOfCustomers);
+        position += numberOfCustomers * 4L;
+        zipCodeIndices = mapInts(channel, position, numberOfCustomers);
+        position += numberOfCustomers * 4L;
+        firstPurchases = mapInts(channel, position, numberOfCustomers + 1);
+        position += (numberOfCustomers + 1) * 4L;
+
+        productIndices = mapInts(channel, position, numberOfPurchases);
+        position += numberOfPurchases * 4L;
+        amounts = mapInts(channel, position, numberOfPurchases);
+    }
+
+    /**
+     * opens a dataset file by mapping it into memory
+     * @param fileName
+     * @return
+     * @throws IOException
+     */
+    public static BinaryDataset open(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            SimulationMetrics.add(SimulationMetrics.Counter.IMPORT_BYTES, channel.size());
+            // the mappings stay valid after the channel has been closed
+            return new BinaryDataset(channel);
+        }
+    }
+
+    /**
+     * writes the products and customers of a supermarket to a dataset file
+     * @param supermarket
+     * @param fileName
+     * @throws IOException
+     */
+    public static void write(Supermarket supermarket, String fileName) throws IOException {
+        write(CustomerStore.of(supermarket), supermarket.getOpenTime(), supermarket.getClosingTime(), fileName);
+    }
+
+    /**
+     * writes the products and customers of a columnar store to a dataset file
+     * @param store
+     * @param openTime
+     * @param closingTime
+     * @param fileName
+     * @throws IOException
+     */
+    public static void write(CustomerStore store, LocalTime openTime, LocalTime closingTime, String fileName) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                SimulationMetrics.countExport(new FileOutputStream(fileName)), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(openTime.toSecondOfDay());
+            out.writeInt(closingTime.toSecondOfDay());
+            out.writeInt(store.getNumberOfProducts());
+            out.writeInt(store.size());
+            out.writeInt(store.getNumberOfPurchases());
+
+            List<String> codes = new ArrayList<>(store.getNumberOfProducts());
+            List<String> descriptions = new ArrayList<>(store.getNumberOfProducts());
+            for (int p = 0; p < store.getNumberOfProducts(); p++) {
+                Product product = store.getProduct(p);
+                out.writeInt((int) Math.round(product.getPrice() * 100));
+                codes.add(product.getCode());
+                descriptions.add(product.getDescription());
+            }
+            writeStrings(out, codes);
+            writeStrings(out, descriptions);
+
+            List<String> zipCodes = new ArrayList<>(store.getNumberOfZipCodes());
+            for (int z = 0; z < store.getNumberOfZipCodes(); z++) {
+                zipCodes.add(store.getZipCode(z));
+            }
+            out.writeInt(zipCodes.size());
+            writeStrings(out, zipCodes);
+
+            for (int c = 0; c < store.size(); c++) {
+                out.writeInt(store.getArrivalSecondOfDay(c));
+            }
+            for (int c = 0; c < store.size(); c++) {
+                out.writeInt(store.getZipCodeId(c));
+            }
+            for (int c = 0; c <= store.size(); c++) {
+                out.writeInt(store.getFirstPurchase(c));
+            }
+
+            for (int pu = 0; pu < store.getNumberOfPurchases(); pu++) {
+                out.writeInt(store.getPurchaseProductIndex(pu));
+            }
+            for (int pu = 0; pu < store.getNumberOfPurchases(); pu++) {
+                out.writeInt(store.getPurchaseAmount(pu));
+            }
+        }
+    }
+
+    /**
+     * builds a supermarket with products and customers from the dataset
+     * @param name  name of the supermarket for reporting purposes
+     * @return
+     */
+    public Supermarket toSupermarket(String name) {
+        Supermarket supermarket = new Supermarket(name,
+                LocalTime.ofSecondOfDay(openTime), LocalTime.ofSecondOfDay(closingTime));
+        Product[] products = new Product[numberOfProducts];
+        for (int p = 0; p < numberOfProducts; p++) {
+            products[p] = new Product(getProductCode(p), getProductDescription(p), getProductPriceCents(p) / 100.0);
+            supermarket.getProducts().add(products[p]);
+        }
+        String[] zips = new String[zipCodes.size()];
+        for (int z = 0; z < zips.length; z++) {
+            zips[z] = zipCodes.get(z);
+        }
+        for (int c = 0; c < numberOfCustomers; c++) {
+            Customer customer = new Customer(LocalTime.ofSecondOfDay(getArrivalSecondOfDay(c)), zips[getZipCodeIndex(c)]);
+            for (int pu = getFirstPurchase(c); pu < getFirstPurchase(c + 1); pu++) {
+                customer.getItems().add(new Purchase(products[getPurchaseProductIndex(pu)], getPurchaseAmount(pu)));
+            }
+            supermarket.getCustomers().add(customer);
+        }
+        return supermarket;
+    }
+
+    public int getOpenTime() {
+        return openTime;
+    }
+
+    public int getClosingTime() {
+        return closingTime;
+    }
+
+    public int getNumberOfProducts() {
+        return numberOfProducts;
+    }
+
+    public int getNumberOfCustomers() {
+        return numberOfCustomers;
+    }
+
+    public int getNumberOfPurchases() {
+        return numberOfPurchases;
+    }
+
+    public String getProductCode(int product) {
+        return productCodes.get(product);
+    }
+
+    public String getProductDescription(int product) {
+        return productDescriptions.get(product);
+    }
+
+    public int getProductPriceCents(int product) {
+        return priceCents.get(product);
+    }
+
+    public int getNumberOfZipCodes() {
+        return zipCodes.size();
+    }
+
+    public String getZipCode(int zipCodeIndex) {
+        return zipCodes.get(zipCodeIndex);
+    }
+
+    public int getArrivalSecondOfDay(int customer) {
+        return arrivals.get(customer);
+    }
+
+    public int getZipCodeIndex(int customer) {
+        return zipCodeIndices.get(customer);
+    }
+
+    /**
+     * the purchases of a customer are found at indices getFirstPurchase(customer) until getFirstPurchase(customer+1)
+     * @param customer  customer index, or the number of customers for the end of the last customer's purchases
+     * @return
+     */
+    public int getFirstPurchase(int customer) {
+        return firstPurchases.get(customer);
+    }
+
+    public int getPurchaseProductIndex(int purchase) {
+        return productIndices.get(purchase);
+    }
+
+    public int getPurchaseAmount(int purchase) {
+        return amounts.get(purchase);
+    }
+
+    private static IntBuffer mapInts(FileChannel channel, long position, int count) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, position, count * 4L).asIntBuffer();
+    }
+
+    private static void writeStrings(DataOutputStream out, List<String> strings) throws IOException {
+        List<byte[]> encoded = new ArrayList<>(strings.size());
+        int offset = 0;
+        for (String s : strings) {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            encoded.add(bytes);
+            out.writeInt(offset);
+            offset += bytes.length;
+        }
+        out.writeInt(offset);
+        for (byte[] bytes : encoded) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * a memory-mapped table of strings
+     */
+    private static class StringTable {
+        private final IntBuffer offsets;
+        private final ByteBuffer utf8;
+        private final int size;
+
+        StringTable(FileChannel channel, long position, int size) throws IOException {
+            this.size = size;
+            this.offsets = mapInts(channel, position, size + 1);
+            this.utf8 = channel.map(FileChannel.MapMode.READ_ONLY, position + (size + 1) * 4L, offsets.get(size));
+        }
+
+        String get(int index) {
+            int start = offsets.get(index);
+            byte[] bytes = new byte[offsets.get(index + 1) - start];
+            ByteBuffer view = utf8.duplicate();
+            view.position(start);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int size() {
+            return size;
+        }
+
+        long sizeInBytes() {
+            return (size + 1) * 4L + offsets.get(size);
+        }
+    }
+}
@@ -3,21 +3,28 @@
  * @author  hbo-ict@hva.nl
  */
 
+import utils.SimulationMetrics;
+
 import java.time.LocalTime;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public abstract class Cashier {
 
     private String name;                    // name of the cashier, for results identification
     protected Queue<Customer> waitingQueue; // queue of waiting customers
-    protected LocalTime currentTime;        // tracks time for the cashier during simulation
+    protected int currentTime;              // tracks time for the cashier during simulation in seconds of the day
     protected Customer currentCustomer;     // the customer that is currently being served by the cashier
     protected int totalIdleTime;            // tracks cumulative seconds when there was no work for the cashier
     protected int maxQueueLength;           // tracks the maximum number of customers at the cashier at any time
+    protected int queuedCheckOutTime;       // sum of the check-out times of all customers in the waiting queue
     private int amountOfServedCustomers;    // counts the amount of customers that the cashier has helped
     private double totalCheckoutTime;       // total checkout time of the cashier
     private double totalWaitingTime;        // sum of the waiting time of all the customers
     private double maxWaitingTime;          // maximum waiting time for a specific customer
+    private final Histogram waitingTimes = new Histogram();     // waiting time of every served customer
+    private final Histogram checkOutTimes = new Histogram();    // check-out time of every served customer
+    private final Histogram queueLengths = new Histogram();     // queue length found by every arriving customer
     protected final int itemScanTime = 2;
     protected final int customerInteractionTime = 20;
 
@@ -26,13 +33,64 @@ public abstract class Cashier {
         this.name = name;
     }
 
+    /**
+     * creates a copy of another cashier with its simulation state and results so far,
+     * such that the copy can continue the simulation independently.
+     * the waiting customers and the customer being served are copied along with their simulation results
+     * @param other
+     * @param waitingQueue  an empty queue of the type of the other cashier
+     */
+    protected Cashier(Cashier other, Queue<Customer> waitingQueue) {
+        this.name = other.name;
+        this.waitingQueue = waitingQueue;
+        for (Customer customer : other.waitingQueue) {
+            this.waitingQueue.add(copyOf(customer));
+        }
+        this.currentCustomer = other.currentCustomer != null ? copyOf(other.currentCustomer) : null;
+        this.currentTime = other.currentTime;
+        this.totalIdleTime = other.totalIdleTime;
+        this.maxQueueLength = other.maxQueueLength;
+        this.queuedCheckOutTime = other.queuedCheckOutTime;
+        this.amountOfServedCustomers = other.amountOfServedCustomers;
+        this.totalCheckoutTime = other.totalCheckoutTime;
+        this.totalWaitingTime = other.totalWaitingTime;
+        this.maxWaitingTime = other.maxWaitingTime;
+        this.waitingTimes.merge(other.waitingTimes);
+        this.checkOutTimes.merge(other.checkOutTimes);
+        this.queueLengths.merge(other.queueLengths);
+    }
+
+    private static Customer copyOf(Customer customer) {
+        Customer copy = new Customer(customer);
+        copy.setActualWaitingTime(customer.getActualWaitingTime());
+        copy.setActualCheckOutTime(customer.getActualCheckOutTime());
+        return copy;
+    }
+
+    /**
+     * creates a copy of this cashier with its simulation state and results so far
+     * @return
+     */
+    public abstract Cashier copy();
+
     /**
      * restart the state if simulation of the cashier to initial time
      * with empty queues
      * @param currentTime
      */
     public void reStart(LocalTime currentTime) {
+        reStart(currentTime.toSecondOfDay());
+    }
+
+    /**
+     * restart the state if simulation of the cashier to initial time
+     * with empty queues
+     * @param currentTime   in seconds of the day
+     */
+    public void reStart(int currentTime) {
         this.waitingQueue.clear();
+        this.queuedCheckOutTime = 0;
+        this.currentCustomer = null;
         this.currentTime = currentTime;
         this.totalIdleTime = 0;
         this.totalWaitingTime = 0;
@@ -40,6 +98,17 @@ public abstract class Cashier {
         this.maxWaitingTime = 0;
         this.maxQueueLength = 0;
         this.amountOfServedCustomers = 0;
+        this.waitingTimes.reset();
+        this.checkOutTimes.reset();
+        this.queueLengths.reset();
+    }
+
+    /**
+     * replaces the waiting queue of a restarted cashier by a lock-free queue of the same kind,
+     * such that other threads can read the waiting customers while the cashier works
+     */
+    void useLockFreeQueue() {
+        this.waitingQueue = new ConcurrentLinkedQueue<>();
     }
 
     /**
@@ -62,6 +131,16 @@ public abstract class Cashier {
      */
     public abstract int expectedWaitingTime(Customer customer);
 
+    /**
+     * the check-out time of the waiting customers that would be served before a new customer
+     * with the given number of items, which depends on the priority configuration of the queue
+     * @param numberOfItems
+     * @return the queued check-out time in seconds
+     */
+    public int getQueuedCheckOutTime(int numberOfItems) {
+        return queuedCheckOutTime;
+    }
+
     /**
      * proceed the cashier's work until the given targetTime has been reached
      * this work may involve:
@@ -71,7 +150,38 @@ public abstract class Cashier {
      *      after which new customers may arrive.
      * @param targetTime
      */
-    public abstract void doTheWorkUntil(LocalTime targetTime);
+    public void doTheWorkUntil(LocalTime targetTime) {
+        doTheWorkUntil(targetTime.toSecondOfDay());
+    }
+
+    /**
+     * proceed the cashier's work until the given targetTime has been reached
+     * @param targetTime    in seconds of the day
+     */
+    public abstract void doTheWorkUntil(int targetTime);
+
+    /**
+     * the time at which the cashier will have finished serving its current customer
+     * the simulation engine uses this to schedule the next moment that the cashier needs to be woken up
+     * @return the completion time in seconds of the day, or -1 if no customer is being served
+     */
+    public abstract int getCompletionSecondOfDay();
+
+    /**
+     * registers that the cashier starts serving the given customer at the given time
+     * the customer has been waiting since he queued up at the cashier
+     * @param customer
+     * @param startTime   in seconds of the day
+     */
+    protected void startServing(Customer customer, int startTime) {
+        int waitingTime = Math.max(0, startTime - customer.getQueuedAt().toSecondOfDay());
+        customer.setActualWaitingTime(waitingTime);
+        this.addWaitingTime(waitingTime);
+        this.waitingTimes.record(waitingTime);
+        if (waitingTime > this.getMaxWaitingTime()) {
+            this.setMaxWaitingTime(waitingTime);
+        }
+    }
 
     /**
      * add a new customer to the queue of the cashier
@@ -85,16 +195,63 @@ public abstract class Cashier {
             // Calculate the duration of the checkout time for the customer
             customer.setActualCheckOutTime(expectedCheckOutTime(customer.getNumberOfItems()));
             this.totalCheckoutTime += customer.getActualCheckOutTime();
-            waitingQueue.add(customer);
+            this.checkOutTimes.record(customer.getActualCheckOutTime());
+            enqueue(customer);
 
             // Check if Cashier is currently handling a Customer
-            final int queueSize = waitingQueue.size() + (currentCustomer == null ? 0 : 1);
+            final int queueSize = getQueueLength();
             // Assign the new maxQueueLength if bigger:
             maxQueueLength = Math.max(maxQueueLength, queueSize);
+            this.queueLengths.record(queueSize);
             amountOfServedCustomers++;
         }
     }
 
+    /**
+     * puts a customer in the waiting queue and adds his check-out time to the workload of the queue
+     * @param customer
+     */
+    protected void enqueue(Customer customer) {
+        SimulationMetrics.increment(SimulationMetrics.Counter.QUEUE_OPERATIONS);
+        waitingQueue.add(customer);
+        queuedCheckOutTime += customer.getActualCheckOutTime();
+    }
+
+    /**
+     * takes the next customer from the waiting queue and removes his check-out time from the workload of the queue
+     * @return the next customer, or null if the queue is empty
+     */
+    protected Customer dequeue() {
+        SimulationMetrics.increment(SimulationMetrics.Counter.QUEUE_OPERATIONS);
+        Customer customer = waitingQueue.poll();
+        if (customer != null) {
+            queuedCheckOutTime -= customer.getActualCheckOutTime();
+        }
+        return customer;
+    }
+
+    /**
+     * the number of customers at the cashier, including the customer being served
+     * @return
+     */
+    public int getQueueLength() {
+        return waitingQueue.size() + (currentCustomer == null ? 0 : 1);
+    }
+
+    public boolean isBusy() {
+        return currentCustomer != null;
+    }
+
+    /**
+     * the remaining work at the cashier from its current time:
+     * the rest of the current customer and the check-out times of all waiting customers
+     * @return the backlog in seconds
+     */
+    public int getBacklogSeconds() {
+        final int completionTime = getCompletionSecondOfDay();
+        return (completionTime >= 0 ? completionTime - currentTime : 0) + queuedCheckOutTime;
+    }
+
     public int getAmountOfServedCustomers() {
         return amountOfServedCustomers;
     }
@@ -119,11 +276,40 @@ public abstract class Cashier {
         maxWaitingTime = value;
     }
 
+    /**
+     * the distribution of the waiting times of the customers that have been served
+     * @return
+     */
+    public Histogram getWaitingTimes() {
+        return waitingTimes;
+    }
+
+    /**
+     * the distribution of the check-out times of the customers that have been served
+     * @return
+     */
+    public Histogram getCheckOutTimes() {
+        return checkOutTimes;
+    }
+
+    /**
+     * the distribution of the queue lengths right after every customer joined the queue,
+     * including the joining customer and the customer being served
+     * @return
+     */
+    public Histogram getQueueLengths() {
+        return queueLengths;
+    }
+
     public int getTotalIdleTime() {
         return totalIdleTime;
     }
 
     public LocalTime getCurrentTime() {
+        return LocalTime.ofSecondOfDay(Math.floorMod(currentTime, 24*60*60));
+    }
+
+    public int getCurrentSecondOfDay() {
         return currentTime;
     }
 
@@ -136,6 +322,10 @@ public abstract class Cashier {
     }
 
     public void setCurrentTime(LocalTime currentTime) {
+        this.currentTime = currentTime.toSecondOfDay();
+    }
+
+    public void setCurrentSecondOfDay(int currentTime) {
         this.currentTime = currentTime;
     }
     public void setTotalIdleTime(int totalIdleTime) {
@@ -0,0 +1,165 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * selects the cashier with the minimum expected waiting time without asking every cashier,
+ * which makes a difference for check-out areas with hundreds of (self-service) lanes.
+ *
+ * the expected waiting time at a busy cashier is its completion time of the current customer
+ * plus the queued check-out time minus the arrival time, and at an idle cashier just the queued check-out time.
+ * the arrival time is the same for all cashiers, so tournament trees of projected completion times of the busy cashiers
+ * and of queued check-out times of the idle cashiers hold the best cashier of each kind at their root.
+ * priority cashiers let customers with few items skip part of their queue,
+ * so there is a pair of trees for every class of customers that the priority cashiers tell apart.
+ * selecting a cashier takes O(1), a change of the workload of a cashier takes O(classes x log(cashiers)).
+ *
+ * the answers are the same as those of Customer.selectCashier, including the first cashier in case of a tie,
+ * as long as busy cashiers have not yet passed their completion time when a customer arrives.
+ * the simulator guarantees that by processing completions before arrivals and reporting every change of a cashier
+ *
+ * the index can add the time to walk from the entrance of the check-out area to every lane to the waiting time.
+ * the walking time of a lane is fixed, so it is part of the values in the trees, and the lanes are placed in the trees
+ * in order of their distance to the entrance, such that a tie goes to the nearest lane
+ */
+public class CashierSelectionIndex implements CashierSelectionPolicy {
+
+    private final int entranceLane;         // the lane nearest to the entrance
+    private final int walkingSecondsPerLane;    // the time to walk from one lane to the next
+    private List<Cashier> cashiers;         // the indexed cashiers, in order of their lane position
+    private final Map<Cashier, Integer> positions = new IdentityHashMap<>();
+    private int[] ranks;                    // place in the trees per lane position, nearest to the entrance first
+    private int[] lanes;                    // lane position per place in the trees
+    private int[] walkingTimes;             // time to walk from the entrance per lane position
+    private int[] maxPriorityItems;         // distinct priority limits of the cashiers, in ascending order
+    private Tournament[] busyCashiers;       // projected completion times of the busy cashiers per customer class
+    private Tournament[] idleCashiers;      // queued check-out times of the idle cashiers per customer class
+
+    /**
+     * an index of the expected waiting times of the cashiers
+     */
+    public CashierSelectionIndex() {
+        this(0, 0);
+    }
+
+    /**
+     * an index of the expected waiting times of the cashiers plus the time to walk to their lanes
+     * @param entranceLane              the position in the list of cashiers nearest to the entrance
+     * @param walkingSecondsPerLane     the time to walk from one lane to the next
+     */
+    public CashierSelectionIndex(int entranceLane, int walkingSecondsPerLane) {
+        this.entranceLane = entranceLane;
+        this.walkingSecondsPerLane = walkingSecondsPerLane;
+    }
+
+    @Override
+    public void start(List<Cashier> cashiers) {
+        this.cashiers = cashiers;
+        positions.clear();
+        placeLanes(cashiers.size());
+        TreeSet<Integer> limits = new TreeSet<>();
+        for (int c = 0; c < cashiers.size(); c++) {
+            positions.put(cashiers.get(c), c);
+            if (cashiers.get(c) instanceof PriorityCashier) {
+                limits.add(((PriorityCashier) cashiers.get(c)).getMaxPriorityItems());
+            }
+        }
+        maxPriorityItems = limits.stream().mapToInt(Integer::intValue).toArray();
+
+        // customers with more items than the limit of class k - 1 and at most the limit of class k are in class k
+        busyCashiers = new Tournament[maxPriorityItems.length + 1];
+        idleCashiers = new Tournament[maxPriorityItems.length + 1];
+        for (int k = 0; k < busyCashiers.length; k++) {
+            busyCashiers[k] = new Tournament(cashiers.size());
+            idleCashiers[k] = new Tournament(cashiers.size());
+        }
+        for (int c = 0; c < cashiers.size(); c++) {
+            update(c);
+        }
+    }
+
+    @Override
+    public void cashierChanged(Cashier cashier) {
+        Integer position = positions.get(cashier);
+        if (position != null) {
+            update(position);
+        }
+    }
+
+    @Override
+    public Cashier selectCashier(Customer customer, List<Cashier> cashiers) {
+        if (cashiers != this.cashiers) {
+            // not indexed yet, e.g. outside of a simulation
+            start(cashiers);
+        }
+        int customerClass = customerClassOf(customer.getNumberOfItems());
+        int busy = busyCashiers[customerClass].getWinner();
+        int idle = idleCashiers[customerClass].getWinner();
+        if (busy < 0) return idle < 0 ? null : cashiers.get(lanes[idle]);
+        if (idle < 0) return cashiers.get(lanes[busy]);
+
+        int busyWaitingTime = busyCashiers[customerClass].getValue(busy) - customer.getQueuedAt().toSecondOfDay();
+        int idleWaitingTime = idleCashiers[customerClass].getValue(idle);
+        if (busyWaitingTime < idleWaitingTime || busyWaitingTime == idleWaitingTime && busy < idle) {
+            return cashiers.get(lanes[busy]);
+        }
+        return cashiers.get(lanes[idle]);
+    }
+
+    // orders the lanes outwards from the entrance, the lane before the entrance before the lane after it
+    private void placeLanes(int nLanes) {
+        ranks = new int[nLanes];
+        lanes = new int[nLanes];
+        walkingTimes = new int[nLanes];
+        int entrance = Math.max(0, Math.min(entranceLane, nLanes - 1));
+        int rank = 0;
+        for (int distance = 0; rank < nLanes; distance++) {
+            int before = entrance - distance;
+            if (before >= 0) {
+                placeLane(before, rank++, distance);
+            }
+            int after = entrance + distance;
+            if (distance > 0 && after < nLanes) {
+                placeLane(after, rank++, distance);
+            }
+        }
+    }
+
+    private void placeLane(int position, int rank, int distance) {
+        ranks[position] = rank;
+        lanes[rank] = position;
+        walkingTimes[position] = distance * walkingSecondsPerLane;
+    }
+
+    // recalculates the entries of the cashier at the given position in the trees of all customer classes
+    private void update(int position) {
+        Cashier cashier = cashiers.get(position);
+        int completionTime = cashier.getCompletionSecondOfDay();
+        int rank = ranks[position];
+        for (int k = 0; k < busyCashiers.length; k++) {
+            // any number of items of the class results in the same queued check-out time
+            int numberOfItems = k == 0 ? 0 : maxPriorityItems[k - 1] + 1;
+            int time = cashier.getQueuedCheckOutTime(numberOfItems) + walkingTimes[position];
+            if (completionTime >= 0) {
+                busyCashiers[k].set(rank, completionTime + time);
+                idleCashiers[k].remove(rank);
+            } else {
+                busyCashiers[k].remove(rank);
+                idleCashiers[k].set(rank, time);
+            }
+        }
+    }
+
+    private int customerClassOf(int numberOfItems) {
+        // the number of priority limits below the number of items
+        int k = Arrays.binarySearch(maxPriorityItems, numberOfItems);
+        return k >= 0 ? k : -k - 1;
+    }
+}
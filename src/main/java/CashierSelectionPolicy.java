@@ -0,0 +1,111 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * the way an arriving customer chooses the cashier to join
+ * the simulator asks the policy of the supermarket for every arriving customer,
+ * so policies can be compared by simulating the same customers with different policies.
+ * a policy that keeps state, such as a random generator or an index, belongs to a single simulation at a time
+ */
+@FunctionalInterface
+public interface CashierSelectionPolicy {
+
+    /**
+     * selects the cashier for an arriving customer
+     * @param customer
+     * @param cashiers  the available cashiers, in order of their lane position
+     * @return  the selected cashier, or null if there are no cashiers
+     */
+    Cashier selectCashier(Customer customer, List<Cashier> cashiers);
+
+    /**
+     * tells the policy that a simulation starts with the given cashiers
+     * @param cashiers  the cashiers that will be passed to selectCashier
+     */
+    default void start(List<Cashier> cashiers) {
+    }
+
+    /**
+     * tells the policy that the queue or current customer of a cashier has changed
+     * @param cashier
+     */
+    default void cashierChanged(Cashier cashier) {
+    }
+
+    /**
+     * asks every cashier for its expected waiting time and joins the cashier with the shortest one,
+     * the first of them in case of a tie. this takes O(cashiers) per customer
+     * @return
+     */
+    static CashierSelectionPolicy minimumWaitingTime() {
+        return (customer, cashiers) -> customer.selectCashier(cashiers);
+    }
+
+    /**
+     * the same selection as minimumWaitingTime, from an index that is kept up to date by the simulator,
+     * which takes O(log cashiers) per customer instead of O(cashiers)
+     * @return
+     */
+    static CashierSelectionPolicy indexedMinimumWaitingTime() {
+        return new CashierSelectionIndex();
+    }
+
+    /**
+     * joins the cashier with the fewest customers, including the customer being served,
+     * without regard to the number of items of the customers in the queue, the first of them in case of a tie.
+     * the queue lengths are kept in an index that is kept up to date by the simulator,
+     * which takes O(log cashiers) per change of a cashier and O(1) per customer
+     * @return
+     */
+    static CashierSelectionPolicy joinShortestQueue() {
+        return new QueueLengthIndex();
+    }
+
+    /**
+     * compares the expected waiting times of two cashiers picked at random and joins the best of both,
+     * the first in lane order in case of a tie.
+     * this takes O(1) per customer, however many cashiers there are,
+     * and is known to come close to asking every cashier
+     * @param seed  the same seed selects the same cashiers for the same customers
+     * @return
+     */
+    static CashierSelectionPolicy powerOfTwoChoices(long seed) {
+        final SplittableRandom randomizer = new SplittableRandom(seed);
+        return (customer, cashiers) -> {
+            int n = cashiers.size();
+            if (n <= 1) return n == 0 ? null : cashiers.get(0);
+            int first = randomizer.nextInt(n);
+            // pick a second cashier that differs from the first
+            int second = randomizer.nextInt(n - 1);
+            if (second >= first) second++;
+            if (second < first) {
+                int swap = first;
+                first = second;
+                second = swap;
+            }
+            Cashier firstCashier = cashiers.get(first);
+            Cashier secondCashier = cashiers.get(second);
+            return secondCashier.expectedWaitingTime(customer) < firstCashier.expectedWaitingTime(customer)
+                    ? secondCashier : firstCashier;
+        };
+    }
+
+    /**
+     * joins the cashier with the shortest expected waiting time plus the time to walk to its lane,
+     * from the lane at which the customers enter the check-out area, the nearest of them in case of a tie,
+     * and the lane before the entrance before the lane after it at the same distance.
+     * the walking times are part of an index that is kept up to date by the simulator,
+     * which takes O(log cashiers) per customer instead of O(cashiers)
+     * @param entranceLane              the position in the list of cashiers nearest to the entrance
+     * @param walkingSecondsPerLane     the time to walk from one lane to the next
+     * @return
+     */
+    static CashierSelectionPolicy nearestLane(int entranceLane, int walkingSecondsPerLane) {
+        return new CashierSelectionIndex(entranceLane, walkingSecondsPerLane);
+    }
+}
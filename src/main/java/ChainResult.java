@@ -0,0 +1,101 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * the results of simulating the stores of a supermarket chain
+ * it holds the overall results of every store and the merged histograms of the waiting times
+ * and check-out times of all customers of the chain, from which the chain-wide percentiles are taken.
+ * results of separate groups of stores can be merged, in any grouping, into the results of the whole chain
+ */
+public class ChainResult {
+    private final List<ScenarioResult> storeResults = new ArrayList<>();   // results per store, in order of the stores
+    private final Histogram waitingTimes = new Histogram();
+    private final Histogram checkOutTimes = new Histogram();
+
+    public ChainResult() {
+    }
+
+    /**
+     * collects the results of a single store after its simulation
+     * @param store     the simulated store with its cashiers
+     * @return
+     */
+    public static ChainResult of(Supermarket store) {
+        ChainResult result = new ChainResult();
+        ScenarioResult storeResult = new ScenarioResult(store.name, store.getCashiers());
+        result.storeResults.add(storeResult);
+        result.waitingTimes.merge(storeResult.getWaitingTimes());
+        result.checkOutTimes.merge(storeResult.getCheckOutTimes());
+        return result;
+    }
+
+    /**
+     * adds the results of other stores to these results
+     * @param other
+     * @return this result
+     */
+    public ChainResult merge(ChainResult other) {
+        storeResults.addAll(other.storeResults);
+        waitingTimes.merge(other.waitingTimes);
+        checkOutTimes.merge(other.checkOutTimes);
+        return this;
+    }
+
+    public List<ScenarioResult> getStoreResults() {
+        return storeResults;
+    }
+
+    public long getNumberOfCustomers() {
+        return checkOutTimes.getTotalCount();
+    }
+
+    public double getAverageWaitingTime() {
+        return waitingTimes.getMean();
+    }
+
+    public int getMaxWaitingTime() {
+        return waitingTimes.getMax();
+    }
+
+    /**
+     * the waiting time that is not exceeded by the given percentage of all customers of the chain
+     * @param percentage    between 0 and 100
+     * @return  the waiting time in seconds
+     */
+    public int getWaitingTimePercentile(double percentage) {
+        return waitingTimes.getValueAtPercentile(percentage);
+    }
+
+    public double getAverageCheckOutTime() {
+        return checkOutTimes.getMean();
+    }
+
+    /**
+     * the check-out time that is not exceeded by the given percentage of all customers of the chain
+     * @param percentage    between 0 and 100
+     * @return  the check-out time in seconds
+     */
+    public int getCheckOutTimePercentile(double percentage) {
+        return checkOutTimes.getValueAtPercentile(percentage);
+    }
+
+    /**
+     * reports the results of all stores and the chain-wide percentiles
+     */
+    public void printResults() {
+        ScenarioRunner.printResults(storeResults);
+        System.out.printf("\nChain results of %d stores and %d customers:\n", storeResults.size(), getNumberOfCustomers());
+        System.out.printf("                avg:     p50:   p90:   p95:   p99:   max:\n");
+        System.out.printf("wait-time:      %-8.2f %-6d %-6d %-6d %-6d %d\n", getAverageWaitingTime(),
+                getWaitingTimePercentile(50), getWaitingTimePercentile(90), getWaitingTimePercentile(95),
+                getWaitingTimePercentile(99), getMaxWaitingTime());
+        System.out.printf("check-out-time: %-8.2f %-6d %-6d %-6d %-6d %d\n", getAverageCheckOutTime(),
+                getCheckOutTimePercentile(50), getCheckOutTimePercentile(90), getCheckOutTimePercentile(95),
+                getCheckOutTimePercentile(99), checkOutTimes.getMax());
+    }
+}
@@ -0,0 +1,140 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * simulates the stores of a supermarket chain in a single process
+ * the stores are split into shards across the worker threads of a fork-join pool.
+ * every store has its own cashier configuration, or the configuration of the chain.
+ * every store is loaded, simulated with its own fresh cashiers and reduced to its results by a single task,
+ * so only the stores that are being simulated at the moment are held in memory.
+ * the results of the shards are merged into the results of the whole chain
+ */
+public class ChainSimulator {
+
+    private final Supplier<List<Cashier>> cashiers;     // creates the cashiers of a store without its own configuration
+    private final List<String> storeNames = new ArrayList<>();
+    private final List<Supplier<Supermarket>> datasets = new ArrayList<>();
+    private final List<Supplier<List<Cashier>>> storeCashiers = new ArrayList<>();   // cashier configuration per store
+
+    /**
+     * prepares the simulation of a chain with a cashier configuration
+     * for the stores that are added without their own configuration
+     * @param cashiers  creates a new set of cashiers for every store
+     */
+    public ChainSimulator(Supplier<List<Cashier>> cashiers) {
+        this.cashiers = cashiers;
+    }
+
+    /**
+     * adds a store that is loaded from a dataset file or resource when it is simulated
+     * names ending with .bin are loaded as binary dataset files, other names as xml resources
+     * @param datasetName
+     * @return  this simulator, to add more stores
+     */
+    public ChainSimulator addStore(String datasetName) {
+        return addStore(datasetName, datasetLoader(datasetName));
+    }
+
+    /**
+     * loads a dataset file or resource when a store is simulated
+     * names ending with .bin are loaded as binary dataset files, other names as xml resources
+     * @param datasetName
+     * @return
+     */
+    public static Supplier<Supermarket> datasetLoader(String datasetName) {
+        return datasetName.endsWith(".bin")
+                ? () -> Supermarket.importFromBinary(datasetName)
+                : () -> Supermarket.importFromXML(datasetName);
+    }
+
+    /**
+     * adds a store that is loaded when it is simulated
+     * @param name      name of the store for reporting purposes
+     * @param dataset   loads the products and customers of the store, returns null if the store cannot be loaded
+     * @return  this simulator, to add more stores
+     */
+    public ChainSimulator addStore(String name, Supplier<Supermarket> dataset) {
+        return addStore(name, dataset, cashiers);
+    }
+
+    /**
+     * adds a store with its own cashier configuration that is loaded when it is simulated
+     * @param name      name of the store for reporting purposes
+     * @param dataset   loads the products and customers of the store, returns null if the store cannot be loaded
+     * @param cashiers  creates the cashiers of the store
+     * @return  this simulator, to add more stores
+     */
+    public ChainSimulator addStore(String name, Supplier<Supermarket> dataset, Supplier<List<Cashier>> cashiers) {
+        storeNames.add(name);
+        datasets.add(dataset);
+        storeCashiers.add(cashiers);
+        return this;
+    }
+
+    /**
+     * simulates all stores in the common fork-join pool
+     * @return  the results of the chain, with the store results in the order in which the stores were added
+     */
+    public ChainResult runAll() {
+        return runAll(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * simulates all stores with the worker threads of the given pool
+     * @param pool
+     * @return  the results of the chain, with the store results in the order in which the stores were added
+     */
+    public ChainResult runAll(ForkJoinPool pool) {
+        if (storeNames.isEmpty()) return new ChainResult();
+        return pool.invoke(new StoreShard(0, storeNames.size()));
+    }
+
+    private ChainResult simulateStore(int store) {
+        Supermarket supermarket = datasets.get(store).get();
+        if (supermarket == null) {
+            // the loader has reported the problem
+            return new ChainResult();
+        }
+        supermarket.name = storeNames.get(store);
+        supermarket.getCashiers().addAll(storeCashiers.get(store).get());
+        supermarket.simulateCashiers();
+        return ChainResult.of(supermarket);
+    }
+
+    /**
+     * simulates a consecutive range of stores,
+     * by splitting the range in halves until a single store remains
+     */
+    private class StoreShard extends RecursiveTask<ChainResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;     // first store of the shard
+        private final int to;       // end of the shard, exclusive
+
+        StoreShard(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ChainResult compute() {
+            if (to - from == 1) {
+                return simulateStore(from);
+            }
+            int middle = (from + to) >>> 1;
+            StoreShard left = new StoreShard(from, middle);
+            left.fork();
+            ChainResult right = new StoreShard(middle, to).compute();
+            // merge in store order
+            return left.join().merge(right);
+        }
+    }
+}
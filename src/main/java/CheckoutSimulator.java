@@ -0,0 +1,373 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import utils.SimulationMetrics;
+import utils.SimulationMetrics.Counter;
+import utils.SimulationMetrics.Timer;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * discrete-event engine of the check-out simulation
+ * a global event calendar holds customer arrivals and the moments at which cashiers finish their current customer.
+ * cashiers are only woken up when an event concerns them:
+ * a) a cashier finishes its current customer and starts on the next one in its queue
+ * b) an arriving customer selects the cashier and joins its queue
+ * the work of an engine therefore scales with the number of events, not with arrivals x cashiers
+ */
+public class CheckoutSimulator {
+
+    private final List<Cashier> cashiers;       // the cashiers that handle the customers
+    private final List<Cashier> openCashiers;   // the cashiers that arriving customers can select
+    private final PriorityQueue<SimulationEvent> calendar;
+    private long nextSequence = 0;              // stamps events in order of scheduling
+    private int pendingArrivals = 0;            // number of arrivals that have not been processed yet
+    private List<Customer> indexedCustomers;    // customers that arrive in the order of the arrival index, if any
+    private ArrivalIndex arrivalIndex;          // arrival order of the indexed customers
+    private int nextIndexedArrival;             // rank of the next indexed customer to arrive
+    private int clock;                          // time of the last processed event in seconds of the day
+    private final boolean copyArrivals;         // whether arriving customers are shared with other simulations
+    private TimeSeriesRecorder recorder;        // samples the state of the cashiers, if any
+    private CashierSelectionPolicy selectionPolicy = CashierSelectionPolicy.minimumWaitingTime();
+
+    /**
+     * prepares a simulation that starts at the given time;
+     * all cashiers are restarted at the start time with empty queues
+     * @param cashiers
+     * @param startTime
+     */
+    public CheckoutSimulator(List<Cashier> cashiers, LocalTime startTime) {
+        this.cashiers = cashiers;
+        this.openCashiers = new ArrayList<>(cashiers);
+        this.calendar = new PriorityQueue<>();
+        this.clock = startTime.toSecondOfDay();
+        this.copyArrivals = false;
+        for (Cashier c : this.cashiers) {
+            c.reStart(startTime);
+        }
+    }
+
+    /**
+     * prepares a simulation that continues from a checkpoint with the given copies of its cashiers
+     * the pending arrivals are shared with the checkpoint, so arriving customers are copied before they join a queue
+     * @param checkpoint
+     * @param cashiers
+     */
+    CheckoutSimulator(SimulationCheckpoint checkpoint, List<Cashier> cashiers) {
+        this.cashiers = cashiers;
+        this.openCashiers = new ArrayList<>(cashiers.size());
+        this.calendar = new PriorityQueue<>(checkpoint.arrivals);
+        this.indexedCustomers = checkpoint.indexedCustomers;
+        this.arrivalIndex = checkpoint.arrivalIndex;
+        this.nextIndexedArrival = checkpoint.nextIndexedArrival;
+        this.clock = checkpoint.time;
+        this.nextSequence = checkpoint.nextSequence;
+        this.pendingArrivals = checkpoint.pendingArrivals;
+        this.copyArrivals = true;
+        for (int c = 0; c < cashiers.size(); c++) {
+            if (!checkpoint.closed[c]) {
+                // cashiers that have been closed before the checkpoint stay closed
+                openCashiers.add(cashiers.get(c));
+            }
+            if (checkpoint.completionSequences[c] >= 0) {
+                calendar.add(SimulationEvent.completion(cashiers.get(c),
+                        cashiers.get(c).getCompletionSecondOfDay(), checkpoint.completionSequences[c]));
+            }
+        }
+    }
+
+    /**
+     * processes all events until the given time and takes a checkpoint of the simulation at that time,
+     * after which this simulation can continue as well
+     * @param time  in seconds of the day
+     * @return
+     */
+    public SimulationCheckpoint checkpointAt(int time) {
+        processEventsUntil(time);
+        clock = Math.max(clock, time);
+
+        List<Cashier> copies = new ArrayList<>(cashiers.size());
+        Map<Cashier, Integer> positions = new IdentityHashMap<>();
+        for (Cashier cashier : cashiers) {
+            positions.put(cashier, copies.size());
+            copies.add(cashier.copy());
+        }
+        long[] completionSequences = new long[cashiers.size()];
+        Arrays.fill(completionSequences, -1);
+        boolean[] closed = new boolean[cashiers.size()];
+        for (int c = 0; c < cashiers.size(); c++) {
+            closed[c] = !openCashiers.contains(cashiers.get(c));
+        }
+        List<SimulationEvent> arrivals = new ArrayList<>(calendar.size());
+        for (SimulationEvent event : calendar) {
+            if (event.getKind() == SimulationEvent.Kind.CUSTOMER_ARRIVES) {
+                arrivals.add(event);
+            } else {
+                completionSequences[positions.get(event.getCashier())] = event.getSequence();
+            }
+        }
+        return new SimulationCheckpoint(clock, nextSequence, pendingArrivals, copies, closed, completionSequences,
+                new PriorityQueue<>(arrivals), indexedCustomers, arrivalIndex, nextIndexedArrival);
+    }
+
+    /**
+     * adds a cashier that customers can select from the current time of the simulation onwards
+     * a time series recorder keeps sampling the cashiers that it has been prepared for
+     * @param cashier
+     */
+    public void openCashier(Cashier cashier) {
+        cashier.reStart(clock);
+        cashiers.add(cashier);
+        openCashiers.add(cashier);
+        selectionPolicy.start(openCashiers);
+    }
+
+    /**
+     * lets arriving customers no longer select the given cashier,
+     * which still serves the customers that are already in its queue
+     * @param cashier
+     */
+    public void closeCashier(Cashier cashier) {
+        if (openCashiers.remove(cashier)) {
+            selectionPolicy.start(openCashiers);
+        }
+    }
+
+    /**
+     * @return all cashiers of the simulation, including closed cashiers
+     */
+    public List<Cashier> getCashiers() {
+        return cashiers;
+    }
+
+    /**
+     * sets the way in which arriving customers choose their cashier
+     * @param selectionPolicy
+     */
+    public void setSelectionPolicy(CashierSelectionPolicy selectionPolicy) {
+        this.selectionPolicy = selectionPolicy;
+        selectionPolicy.start(openCashiers);
+    }
+
+    /**
+     * lets the recorder sample the cashiers at its interval from the current time of the simulation onwards
+     * @param recorder  null to stop sampling
+     * @throws IllegalArgumentException if the recorder has been prepared for a different number of cashiers
+     */
+    public void setRecorder(TimeSeriesRecorder recorder) {
+        if (recorder != null) {
+            if (recorder.getNumberOfCashiers() != cashiers.size()) {
+                throw new IllegalArgumentException("The recorder has been prepared for " +
+                        recorder.getNumberOfCashiers() + " cashiers instead of " + cashiers.size());
+            }
+            recorder.start(clock);
+        }
+        this.recorder = recorder;
+    }
+
+    /**
+     * registers the future arrival of a customer at the check-out area
+     * @param customer
+     * @throws IllegalArgumentException if the simulation has already passed the arrival time of the customer
+     */
+    public void scheduleArrival(Customer customer) {
+        SimulationEvent arrival = SimulationEvent.arrival(customer, nextSequence++);
+        if (arrival.getTime() < clock) {
+            throw new IllegalArgumentException("Customer arriving at " + customer.getQueuedAt() +
+                    " is too late, the simulation has already reached " + LocalTime.ofSecondOfDay(clock));
+        }
+        final long start = SimulationMetrics.startTimer();
+        calendar.add(arrival);
+        SimulationMetrics.stopTimer(Timer.SCHEDULING, start);
+        pendingArrivals++;
+    }
+
+    /**
+     * registers the future arrivals of all customers of a list, in the order of an arrival index of that list
+     * the customers are taken from the list while they arrive, so they never enter the event calendar;
+     * they arrive before customers that have been scheduled separately for the same time
+     * @param customers
+     * @param index     the arrival index of the customers, which may be shared with other lists in the same order
+     * @throws IllegalArgumentException if the simulation has already passed the arrival time of the first customer
+     * @throws IllegalStateException if indexed customers of an earlier list have not arrived yet
+     */
+    public void scheduleArrivals(List<Customer> customers, ArrivalIndex index) {
+        if (arrivalIndex != null && nextIndexedArrival < arrivalIndex.size()) {
+            throw new IllegalStateException("The customers of an earlier arrival index have not all arrived yet");
+        }
+        if (index.size() > 0 && index.getArrivalSecondOfDay(0) < clock) {
+            throw new IllegalArgumentException("Customer arriving at " +
+                    LocalTime.ofSecondOfDay(index.getArrivalSecondOfDay(0)) +
+                    " is too late, the simulation has already reached " + LocalTime.ofSecondOfDay(clock));
+        }
+        this.indexedCustomers = customers;
+        this.arrivalIndex = index;
+        this.nextIndexedArrival = 0;
+        pendingArrivals += index.size();
+    }
+
+    /**
+     * processes the events up to and including the first pending customer arrival
+     * other arrivals at the same time are processed along with it
+     */
+    public void processNextArrival() {
+        final int arrivalsBefore = pendingArrivals;
+        int time;
+        while (pendingArrivals == arrivalsBefore && (time = nextEventTime()) != Integer.MAX_VALUE) {
+            processEventsUntil(time);
+        }
+    }
+
+    /**
+     * processes all events that take place before or at the given time
+     * cashiers that have no events are not updated and may lag behind the given time
+     * @param targetTime    in seconds of the day
+     */
+    public void processEventsUntil(int targetTime) {
+        int time;
+        while ((time = nextEventTime()) <= targetTime) {
+            sampleUntil(time - 1);
+            clock = time;
+            SimulationMetrics.increment(Counter.EVENTS_PROCESSED);
+            if (isIndexedArrivalNext()) {
+                SimulationMetrics.increment(Counter.CUSTOMER_ARRIVALS);
+                pendingArrivals--;
+                handleArrival(indexedCustomers.get(arrivalIndex.getCustomer(nextIndexedArrival++)));
+                continue;
+            }
+            SimulationEvent event = calendar.poll();
+            if (event.getKind() == SimulationEvent.Kind.CUSTOMER_ARRIVES) {
+                SimulationMetrics.increment(Counter.CUSTOMER_ARRIVALS);
+                pendingArrivals--;
+                handleArrival(event.getCustomer());
+            } else {
+                handleCompletion(event.getCashier());
+            }
+        }
+        sampleUntil(Math.min(targetTime, time - 1));
+    }
+
+    /**
+     * @return the time of the next event or indexed arrival in seconds of the day, or Integer.MAX_VALUE if there is none
+     */
+    private int nextEventTime() {
+        SimulationEvent event = calendar.peek();
+        int time = event != null ? event.getTime() : Integer.MAX_VALUE;
+        if (arrivalIndex != null && nextIndexedArrival < arrivalIndex.size()) {
+            time = Math.min(time, arrivalIndex.getArrivalSecondOfDay(nextIndexedArrival));
+        }
+        return time;
+    }
+
+    /**
+     * @return whether the next indexed arrival goes before the next event in the calendar;
+     * cashiers finish their work before newly arriving customers select a cashier
+     */
+    private boolean isIndexedArrivalNext() {
+        if (arrivalIndex == null || nextIndexedArrival >= arrivalIndex.size()) return false;
+        SimulationEvent event = calendar.peek();
+        if (event == null) return true;
+        int arrivalTime = arrivalIndex.getArrivalSecondOfDay(nextIndexedArrival);
+        return arrivalTime < event.getTime() ||
+                arrivalTime == event.getTime() && event.getKind() == SimulationEvent.Kind.CUSTOMER_ARRIVES;
+    }
+
+    /**
+     * processes all events until the given end time
+     * and lets every cashier finish up its work until that time
+     * @param endTime     in seconds of the day
+     */
+    public void closeAt(int endTime) {
+        processEventsUntil(endTime);
+        final long start = SimulationMetrics.startTimer();
+        for (Cashier c : this.cashiers) {
+            c.doTheWorkUntil(endTime);
+        }
+        SimulationMetrics.stopTimer(Timer.CASHIER_WORK, start);
+    }
+
+    /**
+     * @return the number of scheduled customer arrivals that have not been processed yet
+     */
+    public int getPendingArrivals() {
+        return pendingArrivals;
+    }
+
+    /**
+     * @return the time of the last processed event in seconds of the day
+     */
+    public int getClock() {
+        return clock;
+    }
+
+    /**
+     * takes the samples until the given time, all events until that time have been processed
+     * @param time  in seconds of the day
+     */
+    private void sampleUntil(int time) {
+        if (recorder == null) return;
+        int sampleTime;
+        while ((sampleTime = recorder.getNextSampleTime()) <= time) {
+            for (int c = 0; c < cashiers.size(); c++) {
+                Cashier cashier = cashiers.get(c);
+                // idle cashiers and cashiers without events may lag behind the sample time
+                // samples are taken before the next completion, so the queues do not change
+                if (cashier.getCurrentSecondOfDay() < sampleTime) {
+                    cashier.doTheWorkUntil(sampleTime);
+                }
+            }
+            recorder.sample(cashiers);
+        }
+    }
+
+    private void handleArrival(Customer customer) {
+        if (copyArrivals) {
+            // the customer is shared with the checkpoint and its other branches
+            customer = new Customer(customer);
+        }
+        // ask the customer about his preferred cashier for the check-out
+        SimulationMetrics.increment(Counter.CASHIER_SELECTIONS);
+        long start = SimulationMetrics.startTimer();
+        Cashier selectedCashier = selectionPolicy.selectCashier(customer, this.openCashiers);
+        SimulationMetrics.stopTimer(Timer.CASHIER_SELECTION, start);
+        if (selectedCashier == null) return;
+
+        start = SimulationMetrics.startTimer();
+        boolean wasIdle = selectedCashier.getCompletionSecondOfDay() < 0;
+        // bring the selected cashier up to date until the arrival of the customer
+        selectedCashier.doTheWorkUntil(clock);
+        // redirect the customer to the selected cashier
+        selectedCashier.add(customer);
+        if (wasIdle) {
+            // an idle cashier starts serving the new customer right away
+            selectedCashier.doTheWorkUntil(clock);
+            scheduleCompletion(selectedCashier);
+        }
+        selectionPolicy.cashierChanged(selectedCashier);
+        SimulationMetrics.stopTimer(Timer.CASHIER_WORK, start);
+    }
+
+    private void handleCompletion(Cashier cashier) {
+        // finish the current customer and start with the next one in the queue, if any
+        final long start = SimulationMetrics.startTimer();
+        cashier.doTheWorkUntil(clock);
+        selectionPolicy.cashierChanged(cashier);
+        SimulationMetrics.stopTimer(Timer.CASHIER_WORK, start);
+        scheduleCompletion(cashier);
+    }
+
+    private void scheduleCompletion(Cashier cashier) {
+        int completionTime = cashier.getCompletionSecondOfDay();
+        if (completionTime >= 0) {
+            calendar.add(SimulationEvent.completion(cashier, completionTime, nextSequence++));
+        }
+    }
+}
@@ -4,6 +4,7 @@
  */
 
 import utils.XMLParser;
+import utils.XMLWriter;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 import java.time.LocalTime;
@@ -13,6 +14,8 @@ public class Customer implements Comparable<Customer> {
     private LocalTime queuedAt;      // time of arrival at cashier
     private String zipCode;          // zip-code of the customer
     private Set<Purchase> items;     // items procured by customer
+    private int numberOfItems;       // total amount of items in the purchases, kept up to date by the items set
+    private double totalBill;        // total price of the purchases, kept up to date by the items set
     private int actualWaitingTime;   // actual waiting time in seconds before check-out
     private int actualCheckOutTime;  // actual check-out time at cashier in seconds
     private Cashier checkOutCashier; // cashier that the customer has chosen for check-out
@@ -21,39 +24,99 @@ public class Customer implements Comparable<Customer> {
         this.queuedAt = queuedAt;
         this.zipCode = zipCode;
         // TODO: initialize an empty set of purchased items (Complete)
-        this.items = new HashSet<>();
+        this.items = new PurchaseSet();
     }
 
     /**
-     * calculate the total number of items purchased by this customer
-     * @return
+     * creates a copy of another customer with the same arrival time, zip-code and purchases,
+     * but without any simulation results, such that separate simulation runs do not interfere
+     * @param other
      */
-    public int getNumberOfItems() {
-        int numItems = 0;
+    public Customer(Customer other) {
+        this(other.queuedAt, other.zipCode);
+        this.items.addAll(other.items);
+    }
+
+    /**
+     * the set of purchases of a customer, in the order in which they were added
+     * it keeps the number of items and the total bill of the customer up to date
+     * whenever a purchase is added or removed, so these never need to be recalculated
+     */
+    private class PurchaseSet extends AbstractSet<Purchase> {
+        private final Set<Purchase> purchases = new LinkedHashSet<>();
 
-        // TODO: Calculate the total number of items (Complete)
-        // Looping through the set of purchases to add the amount.
-        for (Purchase item : items) {
-            numItems += item.getAmount();
+        @Override
+        public boolean add(Purchase purchase) {
+            if (!purchases.add(purchase)) return false;
+            numberOfItems += purchase.getAmount();
+            totalBill += purchase.getProduct().getPrice() * purchase.getAmount();
+            return true;
         }
 
-        return numItems;
-    }
+        @Override
+        public boolean remove(Object o) {
+            if (!purchases.remove(o)) return false;
+            forget((Purchase) o);
+            return true;
+        }
 
-    public double calculateTotalBill() {
-        double totalBill = 0.0;
+        @Override
+        public boolean contains(Object o) {
+            return purchases.contains(o);
+        }
+
+        @Override
+        public int size() {
+            return purchases.size();
+        }
 
-        // Creating an iterator to iterate over the set of purchases.
-        Iterator<Purchase> itr = this.items.iterator();
+        @Override
+        public Iterator<Purchase> iterator() {
+            Iterator<Purchase> itr = purchases.iterator();
+            return new Iterator<>() {
+                private Purchase last;
+
+                @Override
+                public boolean hasNext() {
+                    return itr.hasNext();
+                }
+
+                @Override
+                public Purchase next() {
+                    return last = itr.next();
+                }
 
-        // Looping through the iterator and adding to the total of the bill.
-        while(itr.hasNext()){
-            Purchase p = itr.next();
-            double price = p.getProduct().getPrice();
-            int amount = p.getAmount();
-            totalBill += (price * amount);
+                @Override
+                public void remove() {
+                    itr.remove();
+                    forget(last);
+                }
+            };
+        }
+
+        private void forget(Purchase purchase) {
+            numberOfItems -= purchase.getAmount();
+            totalBill -= purchase.getProduct().getPrice() * purchase.getAmount();
+            if (purchases.isEmpty()) {
+                // avoid rounding residue on an empty bill
+                totalBill = 0.0;
+            }
         }
+    }
 
+    /**
+     * the total number of items purchased by this customer
+     * @return
+     */
+    public int getNumberOfItems() {
+        return numberOfItems;
+    }
+
+    /**
+     * the total price of all items purchased by this customer
+     * @return
+     */
+    public double calculateTotalBill() {
         return totalBill;
     }
 
@@ -122,7 +185,7 @@ public class Customer implements Comparable<Customer> {
     /**
      * read a series of customers with their purchases from the xml stream
      * and add them to the provided customers list
-     * associatiate the purchases with the appropriate products
+     * associatiate the purchases with the appropriate products from the catalogue
      * @param xmlParser
      * @param customers
      * @param products
@@ -130,7 +193,7 @@ public class Customer implements Comparable<Customer> {
      * @throws XMLStreamException
      */
     public static List<Customer> importCustomersFromXML(XMLParser xmlParser, List<Customer> customers,
-                                                        Set<Product> products) throws XMLStreamException {
+                                                        ProductCatalogue products) throws XMLStreamException {
         if (xmlParser.nextBeginTag("customers")) {
             xmlParser.nextTag();
             if (customers != null) {
@@ -148,13 +211,13 @@ public class Customer implements Comparable<Customer> {
 
     /**
      * read a single customer with his purchases from the xml stream
-     * associatiate the purchases with the appropriate products
+     * associatiate the purchases with the appropriate products from the catalogue
      * @param xmlParser
      * @param products
      * @return
      * @throws XMLStreamException
      */
-    public static Customer importFromXML(XMLParser xmlParser, Set<Product> products) throws XMLStreamException {
+    public static Customer importFromXML(XMLParser xmlParser, ProductCatalogue products) throws XMLStreamException {
         if (xmlParser.nextBeginTag("customer")) {
             LocalTime qTime = LocalTime.parse(xmlParser.getAttributeValue(null, "queuedAt"));
             String zipCode = xmlParser.getAttributeValue(null, "zipCode");
@@ -181,7 +244,7 @@ public class Customer implements Comparable<Customer> {
      */
     public void exportToXML(XMLStreamWriter xmlWriter) throws XMLStreamException {
         xmlWriter.writeStartElement("customer");
-        xmlWriter.writeAttribute("queuedAt", this.queuedAt.toString().concat(":00").substring(0, 8));
+        xmlWriter.writeAttribute("queuedAt", XMLWriter.formatTime(this.queuedAt.toSecondOfDay()));
         xmlWriter.writeAttribute("zipCode", this.zipCode);
         if (this.items != null) {
             for (Purchase pu : this.items) {
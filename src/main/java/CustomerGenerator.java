@@ -0,0 +1,165 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * generates random customers with a random number of items
+ * between 1 and 4 * averageNrItems.
+ * the distribution ensures that on average each customer buys averageNrItems
+ * arrival times are chosen well in advance of closingTime of the supermarket,
+ * such that cashiers can be expected to be able to finish all work
+ * (unless an extreme workload has been configured)
+ *
+ * customers are generated in blocks across the available processors.
+ * every block gets its own random generator, split off in block order from a generator with the given seed,
+ * so the same seed produces the same customers in the same order, regardless of the number of threads.
+ */
+public class CustomerGenerator {
+    private static final int BLOCK_SIZE = 4096;         // number of customers generated by a single task
+    private static final int BLOCKS_PER_WAVE = 4 * Runtime.getRuntime().availableProcessors();
+
+    private final Product[] products;           // the products to choose from
+    private final LocalTime openTime;           // earliest arrival time
+    private final int maxArrivalSeconds;        // arrival interval range
+    private final long seed;
+
+    public CustomerGenerator(Collection<Product> products, LocalTime openTime, LocalTime closingTime, long seed) {
+        this.products = products.toArray(new Product[0]);
+        this.openTime = openTime;
+        // compute an arrival interval range of at least 60 seconds that ends one minute before closing time if possible
+        this.maxArrivalSeconds = Math.max(60, closingTime.toSecondOfDay() - openTime.toSecondOfDay() - 60);
+        this.seed = seed;
+    }
+
+    /**
+     * generates a number of random customers in parallel
+     * @param nCustomers
+     * @param averageNrItems
+     * @return the customers in order of generation
+     */
+    public List<Customer> generate(int nCustomers, int averageNrItems) {
+        List<Customer> customers = new ArrayList<>(nCustomers);
+        iterator(nCustomers, averageNrItems).forEachRemaining(customers::add);
+        return customers;
+    }
+
+    /**
+     * generates a number of random customers into a columnar store
+     * @param nCustomers
+     * @param averageNrItems
+     * @return
+     */
+    public CustomerStore generateStore(int nCustomers, int averageNrItems) {
+        CustomerStore store = new CustomerStore(List.of(products));
+        iterator(nCustomers, averageNrItems).forEachRemaining(store::add);
+        return store;
+    }
+
+    /**
+     * generates a number of random customers while they are being iterated,
+     * such that only a limited number of blocks of customers is held in memory at any time
+     * @param nCustomers
+     * @param averageNrItems
+     * @return an iterator over the customers in order of generation
+     */
+    public Iterator<Customer> iterator(int nCustomers, int averageNrItems) {
+        final int nBlocks = (nCustomers + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        final SplittableRandom root = new SplittableRandom(seed);
+
+        return new Iterator<>() {
+            private int nextBlock = 0;
+            private Iterator<Customer> wave = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                if (!wave.hasNext() && nextBlock < nBlocks) {
+                    wave = nextWave();
+                }
+                return wave.hasNext();
+            }
+
+            @Override
+            public Customer next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return wave.next();
+            }
+
+            // generates the next blocks of customers in parallel
+            private Iterator<Customer> nextWave() {
+                int firstBlock = nextBlock;
+                int nWaveBlocks = Math.min(BLOCKS_PER_WAVE, nBlocks - firstBlock);
+                // split off the generators sequentially, such that block b always gets the same generator
+                SplittableRandom[] randoms = new SplittableRandom[nWaveBlocks];
+                for (int b = 0; b < nWaveBlocks; b++) {
+                    randoms[b] = root.split();
+                }
+                nextBlock += nWaveBlocks;
+                return IntStream.range(0, nWaveBlocks).parallel()
+                        .mapToObj(b -> generateBlock(randoms[b],
+                                Math.min(BLOCK_SIZE, nCustomers - (firstBlock + b) * BLOCK_SIZE), averageNrItems))
+                        .flatMap(List::stream)
+                        .collect(Collectors.toList())
+                        .iterator();
+            }
+        };
+    }
+
+    private List<Customer> generateBlock(SplittableRandom randomizer, int nCustomers, int averageNrItems) {
+        // copy the products to an array for easy random selection
+        Product[] prods = products.clone();
+        List<Customer> customers = new ArrayList<>(nCustomers);
+
+        for (int i = 0; i < nCustomers; i++) {
+            // create a random customer with random arrival time and zip code
+            Customer c = new Customer(
+                    this.openTime.plusSeconds(randomizer.nextInt(maxArrivalSeconds)),
+                    generateRandomZIPCode(randomizer));
+
+            // select a random number of bought items
+            int remainingNumberOfItems = selectRandomNrItems(randomizer, averageNrItems);
+
+            // build a random distribution of these items across available products
+            int upper = prods.length;
+            while (remainingNumberOfItems > 0 && upper > 0) {
+                int count = 1 + randomizer.nextInt(remainingNumberOfItems);
+                // pick a random product that has not been used yet by this customer
+                int pIdx = randomizer.nextInt(upper);
+                c.getItems().add(new Purchase(prods[pIdx], count));
+                remainingNumberOfItems -= count;
+                // move the product out of the range of available products for this customer
+                upper--;
+                Product pt = prods[upper];
+                prods[upper] = prods[pIdx];
+                prods[pIdx] = pt;
+            }
+
+            customers.add(c);
+        }
+        return customers;
+    }
+
+    private static int selectRandomNrItems(SplittableRandom randomizer, int averageNrItems) {
+        return 1 + (int) ((4 * averageNrItems - 1) * randomizer.nextDouble() * randomizer.nextDouble());
+    }
+
+    private static String generateRandomZIPCode(SplittableRandom randomizer) {
+        int randomDigit = randomizer.nextInt(5);
+        int randomChar1 = randomizer.nextInt(2);
+        int randomChar2 = randomizer.nextInt(2);
+        return String.valueOf(1013 + randomDigit) +
+                (char) (randomDigit + 9 * randomChar1 + randomChar2 + 'A') +
+                (char) (randomDigit + 3 * randomChar1 + 7 * randomChar2 + 'D');
+    }
+}
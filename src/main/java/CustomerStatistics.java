@@ -0,0 +1,146 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+/**
+ * aggregates the purchases of customers per zip-code in a single pass
+ * an aggregation can be split across threads: every thread accumulates its own part of the customers
+ * and the partial results are merged afterwards
+ */
+public class CustomerStatistics {
+
+    // below this number of customers the overhead of parallel aggregation does not pay off
+    private static final int PARALLEL_THRESHOLD = 10_000;
+
+    private int numberOfCustomers;                                          // number of aggregated customers
+    private int totalNumberOfItems;                                         // sum of items of all customers
+    private final Map<String, Double> revenues = new HashMap<>();           // revenue per zip-code
+    private final Map<String, Map<Product, Integer>> productCounts = new HashMap<>(); // items per product per zip-code
+
+    public CustomerStatistics() {
+    }
+
+    /**
+     * aggregates the given customers, in parallel for larger numbers of customers
+     * @param customers
+     * @return
+     */
+    public static CustomerStatistics of(List<Customer> customers) {
+        return (customers.size() >= PARALLEL_THRESHOLD ? customers.parallelStream() : customers.stream())
+                .collect(CustomerStatistics::new, CustomerStatistics::add, CustomerStatistics::merge);
+    }
+
+    /**
+     * aggregates the customers of a columnar store straight from its columns,
+     * in parallel for larger numbers of customers
+     * @param store
+     * @return
+     */
+    public static CustomerStatistics of(CustomerStore store) {
+        IntStream customers = IntStream.range(0, store.size());
+        return (store.size() >= PARALLEL_THRESHOLD ? customers.parallel() : customers)
+                .collect(CustomerStatistics::new, (statistics, c) -> statistics.add(store, c), CustomerStatistics::merge);
+    }
+
+    /**
+     * adds the purchases of a stored customer to the statistics
+     * @param store
+     * @param customer  index of the customer in the store
+     */
+    public void add(CustomerStore store, int customer) {
+        String zipCode = store.getZipCode(store.getZipCodeId(customer));
+        numberOfCustomers++;
+        totalNumberOfItems += store.getNumberOfItems(customer);
+        revenues.merge(zipCode, store.getBillCents(customer) / 100.0, Double::sum);
+        Map<Product, Integer> counts = productCounts.computeIfAbsent(zipCode, z -> new HashMap<>());
+        for (int pu = store.getFirstPurchase(customer); pu < store.getFirstPurchase(customer + 1); pu++) {
+            counts.merge(store.getProduct(store.getPurchaseProductIndex(pu)), store.getPurchaseAmount(pu), Integer::sum);
+        }
+    }
+
+    /**
+     * adds the purchases of a customer to the statistics
+     * @param customer
+     */
+    public void add(Customer customer) {
+        numberOfCustomers++;
+        totalNumberOfItems += customer.getNumberOfItems();
+        revenues.merge(customer.getZipCode(), customer.calculateTotalBill(), Double::sum);
+        Map<Product, Integer> counts = productCounts.computeIfAbsent(customer.getZipCode(), zipCode -> new HashMap<>());
+        for (Purchase purchase : customer.getItems()) {
+            counts.merge(purchase.getProduct(), purchase.getAmount(), Integer::sum);
+        }
+    }
+
+    /**
+     * merges the statistics of another part of the customers into these statistics
+     * @param other
+     */
+    public void merge(CustomerStatistics other) {
+        numberOfCustomers += other.numberOfCustomers;
+        totalNumberOfItems += other.totalNumberOfItems;
+        other.revenues.forEach((zipCode, revenue) -> revenues.merge(zipCode, revenue, Double::sum));
+        other.productCounts.forEach((zipCode, otherCounts) -> {
+            Map<Product, Integer> counts = productCounts.computeIfAbsent(zipCode, z -> new HashMap<>());
+            otherCounts.forEach((product, count) -> counts.merge(product, count, Integer::sum));
+        });
+    }
+
+    public int getNumberOfCustomers() {
+        return numberOfCustomers;
+    }
+
+    public int getTotalNumberOfItems() {
+        return totalNumberOfItems;
+    }
+
+    /**
+     * @return the revenues per zip-code, ordered by zip-code
+     */
+    public Map<String, Double> getRevenueByZipCode() {
+        return new TreeMap<>(revenues);
+    }
+
+    /**
+     * @return the sum of the revenues of all zip-codes
+     */
+    public double getTotalRevenue() {
+        double totalRevenue = 0.0;
+        for (double revenue : revenues.values()) {
+            totalRevenue += revenue;
+        }
+        return totalRevenue;
+    }
+
+    /**
+     * finds the product of which the customers of each zip-code have bought the most items together
+     * if multiple products have the same count, the one with the lowest product code is taken.
+     * zip-codes without any purchases are left out.
+     * @return the most bought product per zip-code, ordered by zip-code
+     */
+    public Map<String, Product> getMostBoughtProductByZipCode() {
+        Map<String, Product> mostBought = new TreeMap<>();
+        productCounts.forEach((zipCode, counts) -> {
+            Product mostBoughtProduct = null;
+            int maxCount = 0;
+            for (Map.Entry<Product, Integer> entry : counts.entrySet()) {
+                int count = entry.getValue();
+                if (count > maxCount || (count > 0 && count == maxCount && entry.getKey().compareTo(mostBoughtProduct) < 0)) {
+                    mostBoughtProduct = entry.getKey();
+                    maxCount = count;
+                }
+            }
+            if (mostBoughtProduct != null) {
+                mostBought.put(zipCode, mostBoughtProduct);
+            }
+        });
+        return mostBought;
+    }
+}
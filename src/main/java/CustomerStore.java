@@ -0,0 +1,258 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * a columnar store of customers and their purchases in primitive arrays
+ * customers are identified by their index in the store; for every customer the store holds
+ * the arrival time in seconds of the day, a zip-code id, the number of items, the bill in cents
+ * and the range of his purchases in the flat purchase columns of product index and amount.
+ * this takes a few dozen bytes per customer instead of the objects of a Customer with its Purchases,
+ * a Customer object is only created on demand as a view of a stored customer.
+ */
+public class CustomerStore {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Product[] products;                   // products by product index
+    private final Map<Product, Integer> productIndices = new HashMap<>();
+    private final List<String> zipCodes = new ArrayList<>();          // zip-codes by zip-code id
+    private final Map<String, Integer> zipCodeIds = new HashMap<>();
+
+    private int size;                   // number of customers in the store
+    private int[] arrivals;             // arrival time per customer in seconds of the day
+    private int[] zipCodeIdColumn;      // zip-code id per customer
+    private int[] numberOfItems;        // total amount of items per customer
+    private int[] billCents;            // total bill per customer in cents
+    private int[] firstPurchase;        // index of the first purchase per customer, followed by the end of the last
+
+    private ArrivalIndex arrivalIndex;  // arrival order of the customers, built when it is first needed
+
+    private int numberOfPurchases;      // number of purchases in the store
+    private int[] purchaseProducts;     // product index per purchase
+    private int[] purchaseAmounts;      // amount per purchase
+
+    /**
+     * creates an empty store for customers that buy from the given products
+     * @param products
+     */
+    public CustomerStore(Collection<Product> products) {
+        this(products.toArray(new Product[0]), INITIAL_CAPACITY, INITIAL_CAPACITY);
+    }
+
+    private CustomerStore(Product[] products, int customerCapacity, int purchaseCapacity) {
+        this.products = products;
+        for (int p = 0; p < products.length; p++) {
+            productIndices.put(products[p], p);
+        }
+        arrivals = new int[customerCapacity];
+        zipCodeIdColumn = new int[customerCapacity];
+        numberOfItems = new int[customerCapacity];
+        billCents = new int[customerCapacity];
+        firstPurchase = new int[customerCapacity + 1];
+        purchaseProducts = new int[purchaseCapacity];
+        purchaseAmounts = new int[purchaseCapacity];
+    }
+
+    /**
+     * creates a store with the products and customers of a supermarket
+     * @param supermarket
+     * @return
+     */
+    public static CustomerStore of(Supermarket supermarket) {
+        CustomerStore store = new CustomerStore(supermarket.getProducts());
+        for (Customer customer : supermarket.getCustomers()) {
+            store.add(customer);
+        }
+        return store;
+    }
+
+    /**
+     * creates a store with the products and customers of a binary dataset
+     * the columns of the dataset are copied in bulk, without creating any Customer or Purchase
+     * @param dataset
+     * @return
+     */
+    public static CustomerStore of(BinaryDataset dataset) {
+        Product[] products = new Product[dataset.getNumberOfProducts()];
+        for (int p = 0; p < products.length; p++) {
+            products[p] = new Product(dataset.getProductCode(p), dataset.getProductDescription(p),
+                    dataset.getProductPriceCents(p) / 100.0);
+        }
+        int nCustomers = dataset.getNumberOfCustomers();
+        int nPurchases = dataset.getNumberOfPurchases();
+        CustomerStore store = new CustomerStore(products, nCustomers, nPurchases);
+        for (int z = 0; z < dataset.getNumberOfZipCodes(); z++) {
+            store.zipCodeId(dataset.getZipCode(z));
+        }
+        for (int pu = 0; pu < nPurchases; pu++) {
+            store.purchaseProducts[pu] = dataset.getPurchaseProductIndex(pu);
+            store.purchaseAmounts[pu] = dataset.getPurchaseAmount(pu);
+        }
+        for (int c = 0; c < nCustomers; c++) {
+            store.arrivals[c] = dataset.getArrivalSecondOfDay(c);
+            store.zipCodeIdColumn[c] = dataset.getZipCodeIndex(c);
+            store.firstPurchase[c] = dataset.getFirstPurchase(c);
+            int items = 0;
+            int bill = 0;
+            for (int pu = dataset.getFirstPurchase(c); pu < dataset.getFirstPurchase(c + 1); pu++) {
+                items += store.purchaseAmounts[pu];
+                bill += dataset.getProductPriceCents(store.purchaseProducts[pu]) * store.purchaseAmounts[pu];
+            }
+            store.numberOfItems[c] = items;
+            store.billCents[c] = bill;
+        }
+        store.size = nCustomers;
+        store.numberOfPurchases = nPurchases;
+        store.firstPurchase[nCustomers] = nPurchases;
+        return store;
+    }
+
+    /**
+     * adds a customer with his purchases to the store
+     * @param customer
+     * @return the index of the customer in the store
+     * @throws IllegalArgumentException if the customer bought a product that is not in the store
+     */
+    public int add(Customer customer) {
+        if (size == arrivals.length) {
+            // a store of an empty dataset starts without any capacity
+            int capacity = Math.max(INITIAL_CAPACITY, 2 * size);
+            arrivals = Arrays.copyOf(arrivals, capacity);
+            zipCodeIdColumn = Arrays.copyOf(zipCodeIdColumn, capacity);
+            numberOfItems = Arrays.copyOf(numberOfItems, capacity);
+            billCents = Arrays.copyOf(billCents, capacity);
+            firstPurchase = Arrays.copyOf(firstPurchase, capacity + 1);
+        }
+        if (numberOfPurchases + customer.getItems().size() > purchaseProducts.length) {
+            int capacity = Math.max(2 * purchaseProducts.length, numberOfPurchases + customer.getItems().size());
+            purchaseProducts = Arrays.copyOf(purchaseProducts, capacity);
+            purchaseAmounts = Arrays.copyOf(purchaseAmounts, capacity);
+        }
+
+        int bill = 0;
+        for (Purchase purchase : customer.getItems()) {
+            Integer productIndex = productIndices.get(purchase.getProduct());
+            if (productIndex == null) {
+                throw new IllegalArgumentException("Unknown product code '" + purchase.getProduct().getCode() + "'");
+            }
+            purchaseProducts[numberOfPurchases] = productIndex;
+            purchaseAmounts[numberOfPurchases] = purchase.getAmount();
+            bill += (int) Math.round(purchase.getProduct().getPrice() * 100) * purchase.getAmount();
+            numberOfPurchases++;
+        }
+        arrivals[size] = customer.getQueuedAt().toSecondOfDay();
+        zipCodeIdColumn[size] = zipCodeId(customer.getZipCode());
+        numberOfItems[size] = customer.getNumberOfItems();
+        billCents[size] = bill;
+        firstPurchase[size + 1] = numberOfPurchases;
+        return size++;
+    }
+
+    /**
+     * creates a Customer with his purchases as a view of a stored customer
+     * @param customer  the index of the customer
+     * @return
+     */
+    public Customer getCustomer(int customer) {
+        Customer view = new Customer(LocalTime.ofSecondOfDay(arrivals[customer]), getZipCode(zipCodeIdColumn[customer]));
+        for (int pu = firstPurchase[customer]; pu < firstPurchase[customer + 1]; pu++) {
+            view.getItems().add(new Purchase(products[purchaseProducts[pu]], purchaseAmounts[pu]));
+        }
+        return view;
+    }
+
+    /**
+     * orders the customers by arrival time; customers arriving at the same time keep their order in the store
+     * @return the indices of all customers in order of arrival
+     */
+    public int[] sortedByArrival() {
+        return getArrivalIndex().toArray();
+    }
+
+    /**
+     * the customers in order of arrival, which is sorted once and reused until customers are added
+     * @return
+     */
+    public ArrivalIndex getArrivalIndex() {
+        if (arrivalIndex == null || arrivalIndex.size() != size) {
+            arrivalIndex = ArrivalIndex.of(arrivals, size);
+        }
+        return arrivalIndex;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getNumberOfPurchases() {
+        return numberOfPurchases;
+    }
+
+    public int getArrivalSecondOfDay(int customer) {
+        return arrivals[customer];
+    }
+
+    public int getZipCodeId(int customer) {
+        return zipCodeIdColumn[customer];
+    }
+
+    public String getZipCode(int zipCodeId) {
+        return zipCodes.get(zipCodeId);
+    }
+
+    public int getNumberOfZipCodes() {
+        return zipCodes.size();
+    }
+
+    public int getNumberOfItems(int customer) {
+        return numberOfItems[customer];
+    }
+
+    public int getBillCents(int customer) {
+        return billCents[customer];
+    }
+
+    /**
+     * the purchases of a customer are found at indices getFirstPurchase(customer) until getFirstPurchase(customer+1)
+     * @param customer  customer index, or the number of customers for the end of the last customer's purchases
+     * @return
+     */
+    public int getFirstPurchase(int customer) {
+        return firstPurchase[customer];
+    }
+
+    public int getPurchaseProductIndex(int purchase) {
+        return purchaseProducts[purchase];
+    }
+
+    public int getPurchaseAmount(int purchase) {
+        return purchaseAmounts[purchase];
+    }
+
+    public Product getProduct(int productIndex) {
+        return products[productIndex];
+    }
+
+    public int getNumberOfProducts() {
+        return products.length;
+    }
+
+    private int zipCodeId(String zipCode) {
+        Integer id = zipCodeIds.get(zipCode);
+        if (id == null) {
+            id = zipCodes.size();
+            zipCodes.add(zipCode);
+            zipCodeIds.put(zipCode, id);
+        }
+        return id;
+    }
+}
@@ -1,5 +1,5 @@
-import java.time.LocalTime;
 import java.util.ArrayDeque;
+import java.util.Queue;
 
 public class FIFOCashier extends Cashier {
 
@@ -12,6 +12,26 @@ public class FIFOCashier extends Cashier {
         remainingTimeHandlingPreviousCustomers = 0;
     }
 
+    public FIFOCashier(FIFOCashier other) {
+        this(other, new ArrayDeque<>());
+    }
+
+    protected FIFOCashier(FIFOCashier other, Queue<Customer> waitingQueue) {
+        super(other, waitingQueue);
+        remainingTimeHandlingPreviousCustomers = other.remainingTimeHandlingPreviousCustomers;
+    }
+
+    @Override
+    public FIFOCashier copy() {
+        return new FIFOCashier(this);
+    }
+
+    @Override
+    public void reStart(int currentTime) {
+        super.reStart(currentTime);
+        remainingTimeHandlingPreviousCustomers = 0;
+    }
+
     /**
      * calculate the expected nett checkout time of a customer with a given number of items
      * this may be different for different types of Cashiers
@@ -37,19 +57,31 @@ public class FIFOCashier extends Cashier {
      */
     @Override
     public int expectedWaitingTime(Customer customer) {
-        int waitingTime = 0;
+        // every customer in the queue will be served before the given customer
+        return remainingTimeOfCurrentCustomer(customer) + getQueuedCheckOutTime(customer.getNumberOfItems());
+    }
 
-        if (currentCustomer != null) {
-            waitingTime += remainingTimeHandlingPreviousCustomers;
-        }
 
-        for (Customer queuedCustomer : waitingQueue) {
-            waitingTime += expectedCheckOutTime(queuedCustomer.getNumberOfItems());
+    /**
+     * calculate the remaining work on the current customer at the moment that the given customer queues up.
+     * the simulation engine does not wake up a cashier for every arrival,
+     * so the clock of the cashier may be behind the arrival time of the customer
+     *
+     * @param customer
+     * @return remaining seconds of work on the current customer
+     */
+    protected int remainingTimeOfCurrentCustomer(Customer customer) {
+        if (currentCustomer == null) {
+            return 0;
         }
-
-        return waitingTime;
+        final int lag = Math.max(0, customer.getQueuedAt().toSecondOfDay() - currentTime);
+        return Math.max(0, remainingTimeHandlingPreviousCustomers - lag);
     }
 
+    @Override
+    public int getCompletionSecondOfDay() {
+        return currentCustomer != null ? currentTime + remainingTimeHandlingPreviousCustomers : -1;
+    }
 
     /**
      * proceed the cashier's work until the given targetTime has been reached
@@ -57,72 +89,40 @@ public class FIFOCashier extends Cashier {
      * a) continuing or finishing the current customer(s) begin served
      * b) serving new customers that are waiting on the queue
      * c) sitting idle, taking a break until time has reached targetTime, after which new customers may arrive.
+     * customers are served one after another in a loop, so a long backlog does not deepen the call stack
      *
-     * @param targetTime
+     * @param targetTime in seconds of the day
      */
     @Override
-    public void doTheWorkUntil(LocalTime targetTime) {
-        // Obtain the duration between previous customer arrival (If any, since the first time there is no previous) and new customer arrival:
-        final long durationBetweenCustomers = targetTime.toSecondOfDay() - currentTime.toSecondOfDay();
-        
-        // Verify whether there is a customer that is being handled, since this method re-triggers when a new customer queues.
-        if (currentCustomer == null) {
-            // No current customer, so check if the queue contains a customer now (Since it  might be queued at a different cashier):
-            if (waitingQueue.size() > 0) {
-                // There is a customer in the queue so start handling it:
-                currentCustomer = waitingQueue.poll();
-
-                // Calculate the checkout time of current customer since there is no unfinished previous customer:
-                final int checkoutDurationSeconds = currentCustomer.getActualCheckOutTime();
-                // Calculate the LocalTime in seconds when this customer would have been handled:
-                final int checkoutSecondsOfDay = currentTime.toSecondOfDay() + checkoutDurationSeconds;
-                // Check if there is time enough to handle this customer:
-                final int arrivalTimeFutureCustomer = targetTime.toSecondOfDay();
-                if (checkoutSecondsOfDay <= arrivalTimeFutureCustomer) {
-                    // There was enough time to handle the current customer:
-                    // So this cashier will be idle for x amount OR can start handling the next customer
-                    // Handle that by recursion, since resetting the currentCustomer will ensure that either the next customer is handled, or the idle time is updated:
-                    // Update the currentTime since we handled this customer
-                    currentTime = currentTime.plusSeconds(checkoutDurationSeconds);
-                    currentCustomer = null;
-                    doTheWorkUntil(targetTime);
-                    return;
-                } else {
-                    // Next customer arrives before current Customer is handled (Might even be another customer in the queue, so all customers waiting times should be increased):
-                    // Obtain the exceeding duration in seconds that is required to finish this customer after targetTime
-                    remainingTimeHandlingPreviousCustomers = checkoutSecondsOfDay - arrivalTimeFutureCustomer;
-                    // Update waiting time of customers in the queue:
-                    for (Customer customer : waitingQueue) {
-                        customer.setActualWaitingTime(customer.getActualWaitingTime() + remainingTimeHandlingPreviousCustomers);
-                    }
-                }
-
-                this.addWaitingTime(currentCustomer.getActualWaitingTime());
-                if(currentCustomer.getActualWaitingTime() > this.getMaxWaitingTime()){
-                    this.setMaxWaitingTime(currentCustomer.getActualWaitingTime());
+    public void doTheWorkUntil(int targetTime) {
+        while (true) {
+            if (currentCustomer != null) {
+                // There is a customer that is unfinished so check if that can be finished now:
+                final int completionTime = currentTime + remainingTimeHandlingPreviousCustomers;
+                if (completionTime > targetTime) {
+                    // Not enough time to handle the current customer, so handle it partially by decreasing the remaining time
+                    remainingTimeHandlingPreviousCustomers = completionTime - targetTime;
+                    break;
                 }
-
-            } else {
-                // There is no (current)Customer that the Cashier can help, so the Cashier is idle until a new Customer joins the queue
-                setTotalIdleTime((int) (getTotalIdleTime() + durationBetweenCustomers));
-            }
-        } else {
-            // There is a customer that is unfinished so check if that can be finished now:
-            if (remainingTimeHandlingPreviousCustomers <= durationBetweenCustomers) {
-                // Increase the current time and let recursion handle the next Customer:
-                currentTime = currentTime.plusSeconds(remainingTimeHandlingPreviousCustomers);
+                // Finished the current customer, continue with the next (if any) from the completion time onwards
+                currentTime = completionTime;
                 currentCustomer = null;
-                // Finished the previous customer:
                 remainingTimeHandlingPreviousCustomers = 0;
-                // Start handling the next (if any)
-                doTheWorkUntil(targetTime);
-                return;
             }
-            // Not enough time to handle the current customer, so handle it partially by decreasing the remaining time
-            remainingTimeHandlingPreviousCustomers -= durationBetweenCustomers;
+
+            if (waitingQueue.isEmpty()) {
+                // There is no (current)Customer that the Cashier can help, so the Cashier is idle until a new Customer joins the queue
+                totalIdleTime += targetTime - currentTime;
+                break;
+            }
+
+            // There is a customer in the queue so start handling it:
+            currentCustomer = dequeue();
+            remainingTimeHandlingPreviousCustomers = currentCustomer.getActualCheckOutTime();
+            startServing(currentCustomer, currentTime);
         }
         // Update the current time:
         currentTime = targetTime;
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,120 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.Arrays;
+
+/**
+ * a fixed-memory histogram of non-negative int values, such as durations in seconds or queue lengths
+ * values below 128 are counted exactly, larger values are counted in buckets of at most 1/64 of their size,
+ * like a HdrHistogram with two significant digits. values of 2^17 and more, which is longer than a day in seconds,
+ * share the last bucket. all values fit in 768 counters, so recording a value never allocates,
+ * and histograms of different cashiers, scenarios or stores can be merged into exact combined counts
+ * from which the percentiles are taken
+ */
+public class Histogram {
+    private static final int SUB_BUCKET_BITS = 7;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;         // values counted exactly
+    private static final int SUB_BUCKET_HALF = SUB_BUCKET_COUNT / 2;          // buckets per power of two above that
+    private static final int MAGNITUDES = 17;                                 // values up to 2^MAGNITUDES are bucketed
+    private static final int NUMBER_OF_COUNTERS = SUB_BUCKET_COUNT + (MAGNITUDES - SUB_BUCKET_BITS) * SUB_BUCKET_HALF;
+
+    private final long[] counts = new long[NUMBER_OF_COUNTERS];
+    private long totalCount;        // number of recorded values
+    private long sum;               // exact sum of the recorded values
+    private int max;                // exact largest recorded value
+
+    public Histogram() {
+    }
+
+    /**
+     * records a single value
+     * @param value     negative values are counted as 0
+     */
+    public void record(int value) {
+        if (value < 0) value = 0;
+        counts[indexOf(value)]++;
+        totalCount++;
+        sum += value;
+        if (value > max) max = value;
+    }
+
+    /**
+     * adds all values of another histogram to this histogram
+     * @param other
+     * @return this histogram
+     */
+    public Histogram merge(Histogram other) {
+        for (int i = 0; i < NUMBER_OF_COUNTERS; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    /**
+     * @return the exact average of all recorded values, or 0 if no values have been recorded
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0.0 : (double) sum / totalCount;
+    }
+
+    /**
+     * the value that is not exceeded by the given percentage of all recorded values
+     * above 128 the result is the upper end of the bucket of that value, but never more than the largest value;
+     * for the last bucket it is the largest value
+     * @param percentage    between 0 and 100
+     * @return  the value at the percentile, or 0 if no values have been recorded
+     */
+    public int getValueAtPercentile(double percentage) {
+        // the rank of the value at the percentile, counting from 1
+        long rank = Math.max(1, (long) Math.ceil(Math.min(percentage, 100.0) / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < NUMBER_OF_COUNTERS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return i == NUMBER_OF_COUNTERS - 1 ? max : Math.min(highestValueAt(i), max);
+        }
+        return max;
+    }
+
+    private static int indexOf(int value) {
+        if (value < SUB_BUCKET_COUNT) return value;
+        if (value >= 1 << MAGNITUDES) return NUMBER_OF_COUNTERS - 1;
+        int magnitude = 31 - Integer.numberOfLeadingZeros(value);        // value is in [2^magnitude, 2^(magnitude+1))
+        int subBucket = (value >> (magnitude - SUB_BUCKET_BITS + 1)) - SUB_BUCKET_HALF;
+        return SUB_BUCKET_COUNT + (magnitude - SUB_BUCKET_BITS) * SUB_BUCKET_HALF + subBucket;
+    }
+
+    private static int highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) return index;
+        int magnitude = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF + SUB_BUCKET_BITS;
+        int subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF + SUB_BUCKET_HALF;
+        int shift = magnitude - SUB_BUCKET_BITS + 1;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.2f p50=%d p95=%d p99=%d p99.9=%d max=%d",
+                totalCount, getMean(), getValueAtPercentile(50), getValueAtPercentile(95),
+                getValueAtPercentile(99), getValueAtPercentile(99.9), max);
+    }
+}
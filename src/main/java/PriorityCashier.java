@@ -1,30 +1,67 @@
-import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
 public class PriorityCashier extends FIFOCashier {
 
     private int maxPriorityItems; // the limit to where you can go first in the PriorityCashier waitingQueue
+    private TwoLaneQueue lanes;   // the waitingQueue with a priority lane and a regular lane
+    private int queuedPriorityCheckOutTime; // sum of the check-out times of the customers in the priority lane
 
     public PriorityCashier(String name, int maxPriorityItems) {
         super(name);
-        waitingQueue = new PriorityQueue<>(new PriorityCashierComparator(maxPriorityItems));
+        lanes = new TwoLaneQueue(maxPriorityItems);
+        waitingQueue = lanes;
         this.maxPriorityItems = maxPriorityItems;
     }
 
+    public PriorityCashier(PriorityCashier other) {
+        super(other, new TwoLaneQueue(other.maxPriorityItems));
+        lanes = (TwoLaneQueue) waitingQueue;
+        this.maxPriorityItems = other.maxPriorityItems;
+        this.queuedPriorityCheckOutTime = other.queuedPriorityCheckOutTime;
+    }
+
     @Override
-    public int expectedWaitingTime(Customer customer) {
-        int waitingTime = 0;
+    public PriorityCashier copy() {
+        return new PriorityCashier(this);
+    }
 
-        if (currentCustomer != null) {
-            waitingTime += remainingTimeHandlingPreviousCustomers;
-        }
+    public int getMaxPriorityItems() {
+        return maxPriorityItems;
+    }
+
+    @Override
+    public void reStart(int currentTime) {
+        super.reStart(currentTime);
+        queuedPriorityCheckOutTime = 0;
+    }
+
+    @Override
+    void useLockFreeQueue() {
+        lanes = new TwoLaneQueue(maxPriorityItems, ConcurrentLinkedQueue::new);
+        waitingQueue = lanes;
+    }
+
+    @Override
+    public int getQueuedCheckOutTime(int numberOfItems) {
+        // a priority customer only waits for the customers in the priority lane
+        return numberOfItems <= maxPriorityItems ? queuedPriorityCheckOutTime : queuedCheckOutTime;
+    }
 
-        for (Customer queuedCustomer : waitingQueue) {
-            if (customer.getNumberOfItems() > maxPriorityItems || queuedCustomer.getNumberOfItems() <= maxPriorityItems) {
-                waitingTime += expectedCheckOutTime(queuedCustomer.getNumberOfItems());
-            }
+    @Override
+    protected void enqueue(Customer customer) {
+        super.enqueue(customer);
+        if (lanes.hasPriority(customer)) {
+            queuedPriorityCheckOutTime += customer.getActualCheckOutTime();
         }
+    }
 
-        return waitingTime;
+    @Override
+    protected Customer dequeue() {
+        Customer customer = super.dequeue();
+        if (customer != null && lanes.hasPriority(customer)) {
+            queuedPriorityCheckOutTime -= customer.getActualCheckOutTime();
+        }
+        return customer;
     }
 
-}
\ No newline at end of file
+}
@@ -4,6 +4,7 @@
  */
 
 import utils.XMLParser;
+import utils.XMLWriter;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 import java.util.*;
@@ -71,13 +72,13 @@ public class Product implements Comparable<Product> {
 
     /**
      * read a series of products from the xml stream
-     * and add them to the provided products list
+     * and add them to the provided products catalogue
      * @param xmlParser
      * @param products
      * @return
      * @throws XMLStreamException
      */
-    public static Set<Product> importProductsFromXML(XMLParser xmlParser, Set<Product> products) throws XMLStreamException {
+    public static ProductCatalogue importProductsFromXML(XMLParser xmlParser, ProductCatalogue products) throws XMLStreamException {
         if (xmlParser.nextBeginTag("products")) {
             xmlParser.nextTag();
             if (products != null) {
@@ -122,7 +123,12 @@ public class Product implements Comparable<Product> {
         xmlWriter.writeStartElement("product");
         xmlWriter.writeAttribute("code", this.code);
         xmlWriter.writeAttribute("description", this.description);
-        xmlWriter.writeAttribute("price", String.format(Locale.US, "%.2f", this.price));
+        if (xmlWriter instanceof XMLWriter) {
+            // the writer formats the price in its own buffer
+            ((XMLWriter) xmlWriter).writePriceAttribute("price", this.price);
+        } else {
+            xmlWriter.writeAttribute("price", XMLWriter.formatPrice(this.price));
+        }
         xmlWriter.writeEndElement();
     }
 
@@ -0,0 +1,57 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * the set of products that is being sold in a supermarket, indexed by product code
+ * products are kept in the order in which they were added;
+ * a product with a code that is already in the catalogue is not added again
+ */
+public class ProductCatalogue extends AbstractSet<Product> {
+
+    private final Map<String, Product> productsByCode = new LinkedHashMap<>();
+
+    public ProductCatalogue() {
+    }
+
+    /**
+     * finds the product with the given code in constant time
+     * @param code
+     * @return the product, or null if no product with the given code is being sold
+     */
+    public Product getByCode(String code) {
+        return productsByCode.get(code);
+    }
+
+    @Override
+    public boolean add(Product product) {
+        return productsByCode.putIfAbsent(product.getCode(), product) == null;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof Product)) return false;
+        return productsByCode.remove(((Product) o).getCode()) != null;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof Product && productsByCode.containsKey(((Product) o).getCode());
+    }
+
+    @Override
+    public Iterator<Product> iterator() {
+        return productsByCode.values().iterator();
+    }
+
+    @Override
+    public int size() {
+        return productsByCode.size();
+    }
+}
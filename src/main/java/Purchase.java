@@ -4,9 +4,10 @@
  */
 
 import utils.XMLParser;
+import utils.XMLWriter;
+import javax.xml.stream.Location;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
-import java.util.Set;
 
 /**
  * represents a purchase of a product made by a customer
@@ -42,22 +43,25 @@ public class Purchase {
 
     /**
      * read a single purchase from the xml stream
+     * and look up its product in the catalogue
      * @param xmlParser
+     * @param products
      * @return
-     * @throws XMLStreamException
+     * @throws XMLStreamException if the purchase refers to a product code that is not in the catalogue
      */
-    public static Purchase importFromXML(XMLParser xmlParser, Set<Product> products) throws XMLStreamException {
+    public static Purchase importFromXML(XMLParser xmlParser, ProductCatalogue products) throws XMLStreamException {
         if (xmlParser.nextBeginTag("purchase")) {
             String productCode = xmlParser.getAttributeValue(null, "product");
             int numItems = xmlParser.getIntegerAttributeValue(null, "amount", 0);
+            Location location = xmlParser.getLocation();
             xmlParser.findAndAcceptEndTag("purchase");
 
             if (products != null) {
-                for (Product product : products) {
-                    if (productCode.equals(product.getCode())) {
-                        return new Purchase(product, numItems);
-                    }
+                Product product = products.getByCode(productCode);
+                if (product == null) {
+                    throw new XMLStreamException("Unknown product code '" + productCode + "' in purchase", location);
                 }
+                return new Purchase(product, numItems);
             }
         }
         return null;
@@ -71,7 +75,7 @@ public class Purchase {
     public void exportToXML(XMLStreamWriter xmlWriter) throws XMLStreamException {
         xmlWriter.writeStartElement("purchase");
         xmlWriter.writeAttribute("product", this.product.getCode());
-        xmlWriter.writeAttribute("amount", String.valueOf(this.amount));
+        xmlWriter.writeAttribute("amount", XMLWriter.formatInteger(this.amount));
         xmlWriter.writeEndElement();
     }
 }
@@ -0,0 +1,53 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * selects the cashier with the fewest customers, including the customer being served,
+ * without asking every cashier.
+ * a tournament tree of the queue lengths of the cashiers holds the shortest queue at its root,
+ * the first cashier in case of a tie. selecting a cashier takes O(1),
+ * a change of the queue of a cashier takes O(log(cashiers)).
+ * the simulator reports every change of a cashier, and processes completions before arrivals,
+ * so the queue lengths in the tree are up to date when a customer arrives
+ */
+public class QueueLengthIndex implements CashierSelectionPolicy {
+
+    private List<Cashier> cashiers;         // the indexed cashiers, in order of their lane position
+    private final Map<Cashier, Integer> positions = new IdentityHashMap<>();
+    private Tournament queueLengths;        // the queue length per cashier
+
+    @Override
+    public void start(List<Cashier> cashiers) {
+        this.cashiers = cashiers;
+        positions.clear();
+        queueLengths = new Tournament(cashiers.size());
+        for (int c = 0; c < cashiers.size(); c++) {
+            positions.put(cashiers.get(c), c);
+            queueLengths.set(c, cashiers.get(c).getQueueLength());
+        }
+    }
+
+    @Override
+    public void cashierChanged(Cashier cashier) {
+        Integer position = positions.get(cashier);
+        if (position != null) {
+            queueLengths.set(position, cashier.getQueueLength());
+        }
+    }
+
+    @Override
+    public Cashier selectCashier(Customer customer, List<Cashier> cashiers) {
+        if (cashiers != this.cashiers) {
+            // not indexed yet, e.g. outside of a simulation
+            start(cashiers);
+        }
+        int shortest = queueLengths.getWinner();
+        return shortest < 0 ? null : cashiers.get(shortest);
+    }
+}
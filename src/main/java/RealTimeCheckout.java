@@ -0,0 +1,224 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * real-time check-out simulation with customers arriving concurrently
+ * any number of producer threads, e.g. one per store entrance, can publish arriving customers.
+ * a customer is assigned to a cashier lane immediately on the publishing thread, without locking:
+ * every lane keeps an immutable snapshot of the work that has been assigned to it,
+ * the customer selects the lane with the lowest expected waiting time from these snapshots
+ * and reserves his check-out time on that lane with a compare-and-set, retrying the selection if another
+ * customer got there first. the customer is then handed over to the lane through a lock-free queue.
+ *
+ * a snapshot follows the serving order of its cashier: customers with few items go first at a priority cashier,
+ * so the expected waiting times are those of Cashier.expectedWaitingTime() and customers that are published
+ * in order of arrival select the same lanes as with Customer.selectCashier().
+ * a customer that is published after a later arrival joins behind the work that has been reserved so far.
+ *
+ * the cashiers themselves are only updated by the single clock thread that calls advanceTo(),
+ * which takes the handed over customers into the cashier's queues in order of arrival
+ * and lets the cashiers work until the given time. the waiting queues of the cashiers are lock-free,
+ * so other threads can follow the waiting customers while the cashiers work.
+ */
+public class RealTimeCheckout {
+
+    private static final Comparator<Customer> BY_ARRIVAL = Comparator.comparing(Customer::getQueuedAt);
+
+    private final List<Lane> lanes = new ArrayList<>();
+    private final LongAdder numberOfAssignments = new LongAdder();
+
+    /**
+     * a cashier with the lock-free state that is shared with the publishing threads
+     */
+    private static class Lane {
+        final Cashier cashier;
+        final int maxPriorityItems;         // customers with at most this many items go first
+        final AtomicReference<Workload> workload;   // all customers that have been assigned to the cashier
+        final Queue<Customer> arrivals = new ConcurrentLinkedQueue<>();    // assigned, not yet taken by the cashier
+        final List<Customer> pending = new ArrayList<>();   // taken from the arrivals, arriving after the clock
+
+        Lane(Cashier cashier, int startTime) {
+            this.cashier = cashier;
+            // every customer of a first-in-first-out cashier has the same priority
+            this.maxPriorityItems = cashier instanceof PriorityCashier
+                    ? ((PriorityCashier) cashier).getMaxPriorityItems() : Integer.MAX_VALUE;
+            this.workload = new AtomicReference<>(new Workload(startTime, 0, new int[0], 0, 0));
+        }
+    }
+
+    /**
+     * immutable snapshot of the work of a lane, serving the priority customers first
+     * the priority customers are served back to back once they have their turn,
+     * so they are kept as a single amount of work; the other customers are kept one by one
+     */
+    private static class Workload {
+        final int serviceEnd;       // end of the customer(s) in service, or the time at which the lane became idle
+        final int priorityWork;     // check-out time of the waiting priority customers
+        final int[] regularWork;    // check-out times of the other waiting customers, in order of arrival
+        final int regularHead;      // index of the first waiting customer in regularWork
+        final int regularTotal;     // sum of the check-out times of the other waiting customers
+
+        Workload(int serviceEnd, int priorityWork, int[] regularWork, int regularHead, int regularTotal) {
+            this.serviceEnd = serviceEnd;
+            this.priorityWork = priorityWork;
+            this.regularWork = regularWork;
+            this.regularHead = regularHead;
+            this.regularTotal = regularTotal;
+        }
+
+        /**
+         * @param time
+         * @return the workload after serving the waiting customers whose turn comes before or at the given time
+         */
+        Workload advance(int time) {
+            int end = serviceEnd, priority = priorityWork, head = regularHead, total = regularTotal;
+            while (end <= time) {
+                if (priority > 0) {
+                    end += priority;
+                    priority = 0;
+                } else if (head < regularWork.length) {
+                    total -= regularWork[head];
+                    end += regularWork[head++];
+                } else {
+                    break;
+                }
+            }
+            return head == regularHead && priority == priorityWork ? this
+                    : new Workload(end, priority, regularWork, head, total);
+        }
+
+        /**
+         * @param time      of the arrival of a customer, not before the time of the last advance
+         * @param priority  whether the customer goes first
+         * @return the expected waiting time of the customer
+         */
+        int waitingTime(int time, boolean priority) {
+            return Math.max(0, serviceEnd - time) + priorityWork + (priority ? 0 : regularTotal);
+        }
+
+        /**
+         * @param time          of the arrival of the customer, not before the time of the last advance
+         * @param priority      whether the customer goes first
+         * @param checkOutTime  of the customer
+         * @return the workload with the customer added
+         */
+        Workload add(int time, boolean priority, int checkOutTime) {
+            if (serviceEnd <= time && priorityWork == 0 && regularTotal == 0) {
+                // the lane is idle, so the customer is served right away
+                return new Workload(time + checkOutTime, 0, regularWork, regularHead, 0);
+            }
+            if (priority) {
+                return new Workload(serviceEnd, priorityWork + checkOutTime, regularWork, regularHead, regularTotal);
+            }
+            int[] work = Arrays.copyOfRange(regularWork, regularHead, regularWork.length + 1);
+            work[work.length - 1] = checkOutTime;
+            return new Workload(serviceEnd, priorityWork, work, 0, regularTotal + checkOutTime);
+        }
+    }
+
+    /**
+     * prepares a real-time simulation that starts at the given time;
+     * all cashiers are restarted at the start time with empty, lock-free queues
+     * @param cashiers
+     * @param startTime
+     */
+    public RealTimeCheckout(List<Cashier> cashiers, LocalTime startTime) {
+        for (Cashier cashier : cashiers) {
+            cashier.reStart(startTime);
+            cashier.useLockFreeQueue();
+            lanes.add(new Lane(cashier, startTime.toSecondOfDay()));
+        }
+    }
+
+    /**
+     * assigns an arriving customer to the cashier with the lowest expected waiting time
+     * may be called concurrently by any number of threads
+     * @param customer
+     * @return  the selected cashier, or null if the customer has no items or there are no cashiers
+     */
+    public Cashier publish(Customer customer) {
+        if (customer.getNumberOfItems() == 0 || lanes.isEmpty()) return null;
+        final int arrival = customer.getQueuedAt().toSecondOfDay();
+        final int numberOfItems = customer.getNumberOfItems();
+
+        while (true) {
+            Lane selectedLane = null;
+            Workload selectedWorkload = null, advancedWorkload = null;
+            int shortestWaitingTime = Integer.MAX_VALUE;
+            for (Lane lane : lanes) {
+                Workload workload = lane.workload.get();
+                Workload advanced = workload.advance(arrival);
+                int waitingTime = advanced.waitingTime(arrival, numberOfItems <= lane.maxPriorityItems);
+                if (waitingTime < shortestWaitingTime) {
+                    selectedLane = lane;
+                    selectedWorkload = workload;
+                    advancedWorkload = advanced;
+                    shortestWaitingTime = waitingTime;
+                }
+            }
+
+            Workload reserved = advancedWorkload.add(arrival, numberOfItems <= selectedLane.maxPriorityItems,
+                    selectedLane.cashier.expectedCheckOutTime(numberOfItems));
+            if (selectedLane.workload.compareAndSet(selectedWorkload, reserved)) {
+                selectedLane.arrivals.add(customer);
+                numberOfAssignments.increment();
+                return selectedLane.cashier;
+            }
+            // another customer has reserved the lane in the meantime, select again on fresh snapshots
+        }
+    }
+
+    /**
+     * takes the assigned customers that arrive until the given time into the queues of their cashiers,
+     * in order of arrival, and lets every cashier work until the given time.
+     * customers that arrive later wait for a next call
+     * must only be called by a single clock thread
+     * @param targetTime    in seconds of the day
+     */
+    public void advanceTo(int targetTime) {
+        for (Lane lane : lanes) {
+            Customer customer;
+            while ((customer = lane.arrivals.poll()) != null) {
+                lane.pending.add(customer);
+            }
+            // concurrent publishers hand over customers slightly out of order
+            lane.pending.sort(BY_ARRIVAL);
+            int admitted = 0;
+            while (admitted < lane.pending.size()
+                    && lane.pending.get(admitted).getQueuedAt().toSecondOfDay() <= targetTime) {
+                customer = lane.pending.get(admitted++);
+                // bring the cashier up to date until the arrival of the customer
+                workUntil(lane.cashier, customer.getQueuedAt().toSecondOfDay());
+                lane.cashier.add(customer);
+            }
+            lane.pending.subList(0, admitted).clear();
+            workUntil(lane.cashier, targetTime);
+        }
+    }
+
+    // a customer that is handed over after the clock has passed his arrival joins at the time of the cashier
+    private static void workUntil(Cashier cashier, int targetTime) {
+        if (targetTime > cashier.getCurrentSecondOfDay()) {
+            cashier.doTheWorkUntil(targetTime);
+        }
+    }
+
+    /**
+     * @return the number of customers that have been assigned to a cashier so far
+     */
+    public long getNumberOfAssignments() {
+        return numberOfAssignments.sum();
+    }
+}
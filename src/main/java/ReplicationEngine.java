@@ -0,0 +1,148 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * runs independent replications of a cashier configuration on random customers in parallel
+ * every replication generates its own customers from its own seed, simulates them with fresh cashiers
+ * and is reduced to its results right away, so only the replications that are running are held in memory.
+ * the seeds are drawn in replication order from a generator with the given seed,
+ * and replications are run and merged in fixed batches, so the same seed always gives the same results,
+ * regardless of the number of threads.
+ * after every batch the replications stop once the confidence interval of the average waiting time
+ * has become narrow enough
+ */
+public class ReplicationEngine {
+    private static final int BATCH_SIZE = 64;           // replications between two precision checks
+    private static final int MIN_REPLICATIONS = 30;     // replications before the confidence interval is trusted
+
+    private final Supermarket dataset;                  // the products and opening hours, the customers are not used
+    private final Supplier<List<Cashier>> cashiers;     // creates the cashiers of a single replication
+    private final int nCustomers;
+    private final int averageNrItems;
+    private Supplier<CashierSelectionPolicy> selectionPolicy = CashierSelectionPolicy::minimumWaitingTime;
+
+    /**
+     * prepares replications of a cashier configuration
+     * @param dataset           provides the products and opening hours of the replications
+     * @param cashiers          creates a new set of cashiers for every replication
+     * @param nCustomers        number of random customers of every replication
+     * @param averageNrItems
+     */
+    public ReplicationEngine(Supermarket dataset, Supplier<List<Cashier>> cashiers, int nCustomers, int averageNrItems) {
+        this.dataset = dataset;
+        this.cashiers = cashiers;
+        this.nCustomers = nCustomers;
+        this.averageNrItems = averageNrItems;
+    }
+
+    /**
+     * sets the way in which customers choose their cashier in the replications
+     * @param selectionPolicy   creates a new selection policy for every replication
+     * @return  this engine
+     */
+    public ReplicationEngine setSelectionPolicy(Supplier<CashierSelectionPolicy> selectionPolicy) {
+        this.selectionPolicy = selectionPolicy;
+        return this;
+    }
+
+    /**
+     * runs a fixed number of replications in the common fork-join pool
+     * @param seed
+     * @param replications
+     * @return
+     */
+    public ReplicationResult run(long seed, int replications) {
+        return run(seed, replications, 0.0, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * runs replications in the common fork-join pool until the average waiting time is known precisely enough
+     * @param seed
+     * @param maxReplications       the number of replications if the precision is not reached earlier
+     * @param relativePrecision     the maximum half width of the 95% confidence interval of the average waiting time
+     *                              relative to its mean, e.g. 0.01 for 1%, or 0 to run all replications
+     * @return
+     */
+    public ReplicationResult run(long seed, int maxReplications, double relativePrecision) {
+        return run(seed, maxReplications, relativePrecision, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * runs replications with the worker threads of the given pool until the average waiting time
+     * is known precisely enough
+     * @param seed
+     * @param maxReplications
+     * @param relativePrecision
+     * @param pool
+     * @return
+     */
+    public ReplicationResult run(long seed, int maxReplications, double relativePrecision, ForkJoinPool pool) {
+        SplittableRandom seeds = new SplittableRandom(seed);
+        ReplicationResult result = new ReplicationResult();
+        int replications = 0;
+        while (replications < maxReplications) {
+            long[] batchSeeds = new long[Math.min(BATCH_SIZE, maxReplications - replications)];
+            for (int r = 0; r < batchSeeds.length; r++) {
+                batchSeeds[r] = seeds.nextLong();
+            }
+            result.merge(pool.invoke(new ReplicationShard(replications, batchSeeds, 0, batchSeeds.length)));
+            replications += batchSeeds.length;
+
+            // without a precision all replications are run, also when every replication gives the same result
+            if (relativePrecision > 0 && replications >= MIN_REPLICATIONS &&
+                    result.getAverageWaitingTime().getRelativeHalfWidth() <= relativePrecision) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private ReplicationResult replicate(int replication, long seed) {
+        Supermarket supermarket = dataset.copyWithRandomCustomers(dataset.name + "-" + replication,
+                cashiers.get(), nCustomers, averageNrItems, seed);
+        supermarket.setSelectionPolicy(selectionPolicy);
+        supermarket.simulateCashiers();
+        return ReplicationResult.of(supermarket);
+    }
+
+    /**
+     * runs a consecutive range of the replications of a batch,
+     * by splitting the range in halves until a single replication remains
+     */
+    private class ReplicationShard extends RecursiveTask<ReplicationResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final int firstReplication;     // number of the first replication of the batch
+        private final long[] seeds;             // seeds of the replications of the batch
+        private final int from;                 // first replication of the shard within the batch
+        private final int to;                   // end of the shard, exclusive
+
+        ReplicationShard(int firstReplication, long[] seeds, int from, int to) {
+            this.firstReplication = firstReplication;
+            this.seeds = seeds;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected ReplicationResult compute() {
+            if (to - from == 1) {
+                return replicate(firstReplication + from, seeds[from]);
+            }
+            int middle = (from + to) >>> 1;
+            ReplicationShard left = new ReplicationShard(firstReplication, seeds, from, middle);
+            left.fork();
+            ReplicationResult right = new ReplicationShard(firstReplication, seeds, middle, to).compute();
+            // merge in replication order
+            return left.join().merge(right);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * the results of a number of independent replications of the same cashier configuration
+ * every metric is summarised by its mean across the replications with a confidence interval,
+ * for the configuration as a whole and for every individual cashier.
+ * results of separate groups of replications can be merged
+ */
+public class ReplicationResult {
+    private final List<String> cashierNames = new ArrayList<>();
+    private final ReplicationStatistic averageWaitingTime = new ReplicationStatistic();
+    private final ReplicationStatistic p95WaitingTime = new ReplicationStatistic();
+    private final ReplicationStatistic maxWaitingTime = new ReplicationStatistic();
+    private final ReplicationStatistic totalIdleTime = new ReplicationStatistic();
+    private final List<ReplicationStatistic> cashierWaitingTimes = new ArrayList<>();  // average waiting time per cashier
+    private final List<ReplicationStatistic> cashierCustomers = new ArrayList<>();     // served customers per cashier
+    private final List<ReplicationStatistic> cashierIdleTimes = new ArrayList<>();     // idle time per cashier
+
+    public ReplicationResult() {
+    }
+
+    /**
+     * collects the results of a single replication after its simulation
+     * @param replication   the simulated replication with its cashiers
+     * @return
+     */
+    public static ReplicationResult of(Supermarket replication) {
+        ReplicationResult result = new ReplicationResult();
+        ScenarioResult scenario = new ScenarioResult(replication.name, replication.getCashiers());
+        result.averageWaitingTime.add(scenario.getAverageWaitingTime());
+        result.p95WaitingTime.add(scenario.getWaitingTimes().getValueAtPercentile(95));
+        result.maxWaitingTime.add(scenario.getMaxWaitingTime());
+        result.totalIdleTime.add(scenario.getTotalIdleTime());
+        for (Cashier cashier : replication.getCashiers()) {
+            result.addCashier(cashier.getName());
+            int c = result.cashierNames.size() - 1;
+            result.cashierWaitingTimes.get(c).add(cashier.getWaitingTimes().getMean());
+            result.cashierCustomers.get(c).add(cashier.getAmountOfServedCustomers());
+            result.cashierIdleTimes.get(c).add(cashier.getTotalIdleTime());
+        }
+        return result;
+    }
+
+    /**
+     * adds the results of other replications of the same cashier configuration to these results
+     * @param other
+     * @return this result
+     */
+    public ReplicationResult merge(ReplicationResult other) {
+        averageWaitingTime.merge(other.averageWaitingTime);
+        p95WaitingTime.merge(other.p95WaitingTime);
+        maxWaitingTime.merge(other.maxWaitingTime);
+        totalIdleTime.merge(other.totalIdleTime);
+        for (int c = 0; c < other.cashierNames.size(); c++) {
+            if (c == cashierNames.size()) {
+                addCashier(other.cashierNames.get(c));
+            }
+            cashierWaitingTimes.get(c).merge(other.cashierWaitingTimes.get(c));
+            cashierCustomers.get(c).merge(other.cashierCustomers.get(c));
+            cashierIdleTimes.get(c).merge(other.cashierIdleTimes.get(c));
+        }
+        return this;
+    }
+
+    private void addCashier(String name) {
+        cashierNames.add(name);
+        cashierWaitingTimes.add(new ReplicationStatistic());
+        cashierCustomers.add(new ReplicationStatistic());
+        cashierIdleTimes.add(new ReplicationStatistic());
+    }
+
+    public long getNumberOfReplications() {
+        return averageWaitingTime.getCount();
+    }
+
+    /**
+     * @return the customer weighted average waiting time of a replication
+     */
+    public ReplicationStatistic getAverageWaitingTime() {
+        return averageWaitingTime;
+    }
+
+    /**
+     * @return the waiting time that is not exceeded by 95% of the customers of a replication
+     */
+    public ReplicationStatistic getP95WaitingTime() {
+        return p95WaitingTime;
+    }
+
+    public ReplicationStatistic getMaxWaitingTime() {
+        return maxWaitingTime;
+    }
+
+    public ReplicationStatistic getTotalIdleTime() {
+        return totalIdleTime;
+    }
+
+    public List<String> getCashierNames() {
+        return cashierNames;
+    }
+
+    public ReplicationStatistic getCashierWaitingTime(int cashier) {
+        return cashierWaitingTimes.get(cashier);
+    }
+
+    public ReplicationStatistic getCashierCustomers(int cashier) {
+        return cashierCustomers.get(cashier);
+    }
+
+    public ReplicationStatistic getCashierIdleTime(int cashier) {
+        return cashierIdleTimes.get(cashier);
+    }
+
+    /**
+     * reports the means and 95% confidence intervals of the replications
+     */
+    public void printResults() {
+        System.out.printf("\nResults of %d replications (mean +/- 95%% confidence):\n", getNumberOfReplications());
+        System.out.printf("avg-wait-time: %s\np95-wait-time: %s\nmax-wait-time: %s\nidle-time:     %s\n",
+                averageWaitingTime, p95WaitingTime, maxWaitingTime, totalIdleTime);
+        System.out.printf("\nCashiers:   avg-wait-time:     n-customers:       idle-time:\n");
+        for (int c = 0; c < cashierNames.size(); c++) {
+            System.out.printf("%-11s %-18s %-18s %s\n", cashierNames.get(c),
+                    cashierWaitingTimes.get(c), cashierCustomers.get(c), cashierIdleTimes.get(c));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.Locale;
+
+/**
+ * the mean of a metric across independent replications, with its 95% confidence interval
+ * observations are accumulated with Welford's method, so the variance stays accurate for many replications,
+ * and statistics of separate groups of replications can be merged
+ */
+public class ReplicationStatistic {
+    private static final double Z_95 = 1.959964;    // two-sided 95% quantile of the normal distribution
+
+    private long count;         // number of observations
+    private double mean;        // mean of the observations
+    private double squares;     // sum of the squared deviations from the mean
+
+    public void add(double value) {
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        squares += delta * (value - mean);
+    }
+
+    /**
+     * adds the observations of another statistic to this statistic
+     * @param other
+     * @return this statistic
+     */
+    public ReplicationStatistic merge(ReplicationStatistic other) {
+        if (other.count == 0) return this;
+        long total = count + other.count;
+        double delta = other.mean - mean;
+        squares += other.squares + delta * delta * count * other.count / total;
+        mean += delta * other.count / total;
+        count = total;
+        return this;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    /**
+     * @return the sample standard deviation of the observations, or 0 if there are less than two
+     */
+    public double getStandardDeviation() {
+        return count < 2 ? 0.0 : Math.sqrt(squares / (count - 1));
+    }
+
+    /**
+     * half the width of the 95% confidence interval of the mean, by the normal approximation
+     * which holds for the number of replications that are needed for a useful interval
+     * @return the half width, or infinity if there are less than two observations
+     */
+    public double getHalfWidth() {
+        return count < 2 ? Double.POSITIVE_INFINITY : Z_95 * getStandardDeviation() / Math.sqrt(count);
+    }
+
+    /**
+     * @return the half width of the confidence interval relative to the mean
+     */
+    public double getRelativeHalfWidth() {
+        double halfWidth = getHalfWidth();
+        if (halfWidth == 0) return 0.0;
+        return mean == 0 ? Double.POSITIVE_INFINITY : halfWidth / Math.abs(mean);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%.2f +/- %.2f", mean, getHalfWidth());
+    }
+}
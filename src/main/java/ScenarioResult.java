@@ -0,0 +1,109 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.List;
+
+/**
+ * the overall results of simulating a single cashier configuration on a dataset
+ * results are customer weighted across all cashiers of the configuration,
+ * by merging the histograms of the cashiers
+ */
+public class ScenarioResult implements Comparable<ScenarioResult> {
+    private final String name;                  // name of the scenario
+    private final List<Cashier> cashiers;       // the simulated cashiers with their individual results
+    private int numberOfCustomers;              // number of customers served by all cashiers
+    private double averageWaitingTime;          // customer weighted average waiting time
+    private double maxWaitingTime;              // maximum waiting time of any customer
+    private int maxQueueLength;                 // maximum queue length at any cashier
+    private double averageCheckOutTime;         // customer weighted average check-out time
+    private int totalIdleTime;                  // sum of the idle times of all cashiers
+    private final Histogram waitingTimes = new Histogram();     // waiting times of all customers
+    private final Histogram checkOutTimes = new Histogram();    // check-out times of all customers
+    private final Histogram queueLengths = new Histogram();     // queue lengths at all cashiers
+
+    public ScenarioResult(String name, List<Cashier> cashiers) {
+        this.name = name;
+        this.cashiers = cashiers;
+
+        for (Cashier cashier : cashiers) {
+            this.numberOfCustomers += cashier.getAmountOfServedCustomers();
+            this.maxWaitingTime = Math.max(this.maxWaitingTime, cashier.getMaxWaitingTime());
+            this.maxQueueLength = Math.max(this.maxQueueLength, cashier.getMaxQueueLength());
+            this.totalIdleTime += cashier.getTotalIdleTime();
+            this.waitingTimes.merge(cashier.getWaitingTimes());
+            this.checkOutTimes.merge(cashier.getCheckOutTimes());
+            this.queueLengths.merge(cashier.getQueueLengths());
+        }
+        this.averageWaitingTime = this.waitingTimes.getMean();
+        this.averageCheckOutTime = this.checkOutTimes.getMean();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<Cashier> getCashiers() {
+        return cashiers;
+    }
+
+    public int getNumberOfCustomers() {
+        return numberOfCustomers;
+    }
+
+    public double getAverageWaitingTime() {
+        return averageWaitingTime;
+    }
+
+    public double getMaxWaitingTime() {
+        return maxWaitingTime;
+    }
+
+    public int getMaxQueueLength() {
+        return maxQueueLength;
+    }
+
+    public double getAverageCheckOutTime() {
+        return averageCheckOutTime;
+    }
+
+    public int getTotalIdleTime() {
+        return totalIdleTime;
+    }
+
+    public Histogram getWaitingTimes() {
+        return waitingTimes;
+    }
+
+    public Histogram getCheckOutTimes() {
+        return checkOutTimes;
+    }
+
+    public Histogram getQueueLengths() {
+        return queueLengths;
+    }
+
+    /**
+     * scenarios are ordered by their average waiting time, the best scenario first
+     * @param o
+     * @return
+     */
+    @Override
+    public int compareTo(ScenarioResult o) {
+        int result = Double.compare(this.averageWaitingTime, o.averageWaitingTime);
+        if (result == 0) {
+            result = Double.compare(this.maxWaitingTime, o.maxWaitingTime);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s:\t\t\t%d\t\t\t%d\t\t\t%.2f\t\t\t%.2f\t\t\t%d\t\t\t\t%.2f\t\t\t%d\t\t%d\t\t%d\t\t%d\t\t%d",
+                name, cashiers.size(), numberOfCustomers, averageWaitingTime, maxWaitingTime,
+                maxQueueLength, averageCheckOutTime, totalIdleTime,
+                waitingTimes.getValueAtPercentile(50), waitingTimes.getValueAtPercentile(95),
+                waitingTimes.getValueAtPercentile(99), waitingTimes.getValueAtPercentile(99.9));
+    }
+}
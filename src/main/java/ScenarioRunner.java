@@ -0,0 +1,84 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * simulates a number of cashier configurations on the same dataset in parallel
+ * every scenario runs on its own copy of the customers with its own fresh cashiers,
+ * such that the results of one scenario cannot leak into another
+ */
+public class ScenarioRunner {
+
+    private final Supermarket dataset;      // the loaded products and customers, which are not modified
+    private final Map<String, Supplier<List<Cashier>>> scenarios = new LinkedHashMap<>();
+    private final Map<String, Supplier<CashierSelectionPolicy>> policies = new LinkedHashMap<>();
+
+    public ScenarioRunner(Supermarket dataset) {
+        this.dataset = dataset;
+    }
+
+    /**
+     * adds a cashier configuration to be simulated
+     * @param name      name of the scenario for reporting purposes
+     * @param cashiers  creates a new set of cashiers for every run of the scenario
+     * @return  this runner, to add more scenarios
+     */
+    public ScenarioRunner addScenario(String name, Supplier<List<Cashier>> cashiers) {
+        return addScenario(name, cashiers, CashierSelectionPolicy::minimumWaitingTime);
+    }
+
+    /**
+     * adds a cashier configuration to be simulated with a specific way of selecting cashiers,
+     * such that policies can be compared on the same customers and cashiers
+     * @param name      name of the scenario for reporting purposes
+     * @param cashiers  creates a new set of cashiers for every run of the scenario
+     * @param policy    creates a new selection policy for every run of the scenario
+     * @return  this runner, to add more scenarios
+     */
+    public ScenarioRunner addScenario(String name, Supplier<List<Cashier>> cashiers,
+                                      Supplier<CashierSelectionPolicy> policy) {
+        scenarios.put(name, cashiers);
+        policies.put(name, policy);
+        return this;
+    }
+
+    /**
+     * simulates all scenarios in parallel across the available processors
+     * @return  the results of the scenarios, in the order in which they were added
+     */
+    public List<ScenarioResult> runAll() {
+        return new ArrayList<>(scenarios.entrySet()).parallelStream()
+                .map(scenario -> run(scenario.getKey(), scenario.getValue().get(),
+                        policies.get(scenario.getKey())))
+                .collect(Collectors.toList());
+    }
+
+    private ScenarioResult run(String name, List<Cashier> cashiers, Supplier<CashierSelectionPolicy> policy) {
+        Supermarket supermarket = dataset.copyForSimulation(name, cashiers);
+        supermarket.setSelectionPolicy(policy);
+        supermarket.simulateCashiers();
+        return new ScenarioResult(name, cashiers);
+    }
+
+    /**
+     * reports the overall results of a number of scenarios in a single table
+     * @param results
+     */
+    public static void printResults(List<ScenarioResult> results) {
+        System.out.printf("\nScenario comparison results:\n");
+        System.out.printf("Scenarios:   n-cashiers:  n-customers:  avg-wait-time: max-wait-time: max-queue-length: avg-check-out-time: idle-time:" +
+                "  p50-wait: p95-wait: p99-wait: p99.9-wait:\n");
+        System.out.println();
+        for (ScenarioResult result : results) {
+            System.out.println(result);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * the state of a check-out simulation at a moment of the day, from which any number of branches can continue
+ * a checkpoint holds copies of the cashiers with their queues, current customers, remaining work and results so far,
+ * and the arrivals that are still to come. it is never simulated itself, so it can be forked again and again.
+ *
+ * forking is cheap: every branch copies the cashiers and their few waiting customers,
+ * continues the arrival index of the customers from the same position
+ * and copies the heap of separately scheduled arrivals as a whole without reordering it.
+ * the customers of the pending arrivals are shared with the branches until they arrive,
+ * at which moment every branch continues with its own copy of the customer
+ */
+public class SimulationCheckpoint {
+    final int time;                             // time of the checkpoint in seconds of the day
+    final long nextSequence;                    // sequence number of the next scheduled event
+    final int pendingArrivals;                  // number of arrivals that have not been processed yet
+    final List<Cashier> cashiers;               // copies of the cashiers at the time of the checkpoint
+    final boolean[] closed;                     // whether a cashier is closed for arriving customers
+    final long[] completionSequences;           // sequence of the completion event of every busy cashier
+    final PriorityQueue<SimulationEvent> arrivals;  // the pending separately scheduled arrivals, in calendar order
+    final List<Customer> indexedCustomers;      // customers that arrive in the order of the arrival index, if any
+    final ArrivalIndex arrivalIndex;            // arrival order of the indexed customers
+    final int nextIndexedArrival;               // rank of the next indexed customer to arrive
+
+    SimulationCheckpoint(int time, long nextSequence, int pendingArrivals, List<Cashier> cashiers, boolean[] closed,
+                         long[] completionSequences, PriorityQueue<SimulationEvent> arrivals,
+                         List<Customer> indexedCustomers, ArrivalIndex arrivalIndex, int nextIndexedArrival) {
+        this.time = time;
+        this.nextSequence = nextSequence;
+        this.pendingArrivals = pendingArrivals;
+        this.cashiers = cashiers;
+        this.closed = closed;
+        this.completionSequences = completionSequences;
+        this.arrivals = arrivals;
+        this.indexedCustomers = indexedCustomers;
+        this.arrivalIndex = arrivalIndex;
+        this.nextIndexedArrival = nextIndexedArrival;
+    }
+
+    /**
+     * @return the time of the checkpoint in seconds of the day
+     */
+    public int getTime() {
+        return time;
+    }
+
+    /**
+     * @return the number of customers that have not arrived yet at the time of the checkpoint
+     */
+    public int getPendingArrivals() {
+        return pendingArrivals;
+    }
+
+    /**
+     * @return the state of the cashiers at the time of the checkpoint, which is not to be modified
+     */
+    public List<Cashier> getCashiers() {
+        return Collections.unmodifiableList(cashiers);
+    }
+
+    /**
+     * creates a simulator that continues from this checkpoint with its own copies of the cashiers
+     * cashiers can be opened or closed in the new simulator before it continues
+     * @return
+     */
+    public CheckoutSimulator fork() {
+        List<Cashier> copies = new ArrayList<>(cashiers.size());
+        for (Cashier cashier : cashiers) {
+            copies.add(cashier.copy());
+        }
+        return new CheckoutSimulator(this, copies);
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+/**
+ * an entry in the event calendar of the check-out simulation
+ * it either registers the arrival of a customer at the check-out area
+ * or the moment that a cashier will have finished serving its current customer
+ */
+class SimulationEvent implements Comparable<SimulationEvent> {
+
+    // the declaration order is the processing order of events that occur at the same time:
+    // cashiers first finish their work before newly arriving customers select a cashier
+    enum Kind { CASHIER_FINISHES, CUSTOMER_ARRIVES }
+
+    private final int time;             // simulated time of the event in seconds of the day
+    private final Kind kind;            // the type of event
+    private final long sequence;        // insertion order, keeps simultaneous events of the same kind stable
+    private final Customer customer;    // the arriving customer, if any
+    private final Cashier cashier;      // the cashier finishing a customer, if any
+
+    private SimulationEvent(int time, Kind kind, long sequence, Customer customer, Cashier cashier) {
+        this.time = time;
+        this.kind = kind;
+        this.sequence = sequence;
+        this.customer = customer;
+        this.cashier = cashier;
+    }
+
+    static SimulationEvent arrival(Customer customer, long sequence) {
+        return new SimulationEvent(customer.getQueuedAt().toSecondOfDay(), Kind.CUSTOMER_ARRIVES,
+                sequence, customer, null);
+    }
+
+    static SimulationEvent completion(Cashier cashier, int time, long sequence) {
+        return new SimulationEvent(time, Kind.CASHIER_FINISHES, sequence, null, cashier);
+    }
+
+    int getTime() {
+        return time;
+    }
+
+    Kind getKind() {
+        return kind;
+    }
+
+    long getSequence() {
+        return sequence;
+    }
+
+    Customer getCustomer() {
+        return customer;
+    }
+
+    Cashier getCashier() {
+        return cashier;
+    }
+
+    @Override
+    public int compareTo(SimulationEvent o) {
+        int result = Integer.compare(this.time, o.time);
+        if (result == 0) {
+            result = this.kind.compareTo(o.kind);
+        }
+        if (result == 0) {
+            result = Long.compare(this.sequence, o.sequence);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return kind + "@" + time + (customer != null ? " " + customer.getZipCode() : " " + cashier.getName());
+    }
+}
@@ -0,0 +1,193 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * searches the cheapest mix of FIFO and priority cashiers for which the waiting time of 95% of the customers
+ * of a dataset stays within a target.
+ *
+ * the search assumes that an extra lane never increases the p95 waiting time.
+ * for a given number of priority lanes, the minimum number of FIFO lanes is then found by bisection,
+ * and it can only go down when a priority lane is added, so every next number of priority lanes
+ * is searched below the previous minimum (a staircase through the configurations).
+ * configurations that cannot be cheaper than the best plan so far are never simulated,
+ * and once the priority lanes alone are too expensive, the staircase ends.
+ * the staircases of the different priority limits run in parallel, and within a bisection
+ * as many configurations are simulated at once as there are worker threads, through a ScenarioRunner
+ */
+public class StaffingOptimizer {
+
+    private final Supermarket dataset;          // the products and customers, which are not modified
+    private final int maxP95WaitingTime;        // target for the waiting time of 95% of the customers, in seconds
+    private int maxLanes = 40;                  // maximum number of lanes of a configuration
+    private int[] maxPriorityItemsOptions = {5};
+    private double fifoLaneCost = 1.0;
+    private double priorityLaneCost = 1.0;
+    private final AtomicInteger evaluations = new AtomicInteger();
+    private StaffingPlan bestPlan;              // the best plan so far that meets the target
+
+    /**
+     * prepares a search on the customers of the given dataset
+     * @param dataset
+     * @param maxP95WaitingTime     the waiting time in seconds that 95% of the customers may not exceed
+     */
+    public StaffingOptimizer(Supermarket dataset, int maxP95WaitingTime) {
+        this.dataset = dataset;
+        this.maxP95WaitingTime = maxP95WaitingTime;
+    }
+
+    /**
+     * @param maxLanes  the maximum number of lanes of a configuration
+     * @return  this optimizer
+     */
+    public StaffingOptimizer setMaxLanes(int maxLanes) {
+        this.maxLanes = maxLanes;
+        return this;
+    }
+
+    /**
+     * @param options   the priority limits to be tried for the priority cashiers, at least one
+     * @return  this optimizer
+     */
+    public StaffingOptimizer setMaxPriorityItems(int... options) {
+        if (options.length == 0) {
+            throw new IllegalArgumentException("At least one priority limit needs to be tried");
+        }
+        this.maxPriorityItemsOptions = options.clone();
+        return this;
+    }
+
+    /**
+     * @param fifoLaneCost      cost of a FIFO cashier
+     * @param priorityLaneCost  cost of a priority cashier
+     * @return  this optimizer
+     */
+    public StaffingOptimizer setLaneCosts(double fifoLaneCost, double priorityLaneCost) {
+        this.fifoLaneCost = fifoLaneCost;
+        this.priorityLaneCost = priorityLaneCost;
+        return this;
+    }
+
+    /**
+     * @return the number of configurations that have been simulated by the last search
+     */
+    public int getNumberOfEvaluations() {
+        return evaluations.get();
+    }
+
+    /**
+     * searches the cheapest configuration that meets the target;
+     * of configurations with the same cost the one with the fewest lanes is preferred
+     * @return  the plan of the cheapest configuration, or null if no configuration of at most maxLanes lanes
+     *          meets the target
+     */
+    public StaffingPlan optimize() {
+        evaluations.set(0);
+        bestPlan = null;
+
+        // without priority lanes the priority limit does not matter, so that row is shared by all staircases
+        final int minFifoLanes = searchRow(0, maxPriorityItemsOptions[0], maxLanes);
+        Arrays.stream(maxPriorityItemsOptions).parallel()
+                .forEach(maxPriorityItems -> searchStaircase(maxPriorityItems, minFifoLanes));
+        return bestPlan;
+    }
+
+    private void searchStaircase(int maxPriorityItems, int fifoBound) {
+        for (int priorityLanes = 1; priorityLanes <= maxLanes; priorityLanes++) {
+            if (priorityLanes * priorityLaneCost > getBestCost()) {
+                // even without FIFO lanes, more priority lanes cannot be cheaper
+                return;
+            }
+            fifoBound = searchRow(priorityLanes, maxPriorityItems, fifoBound);
+        }
+    }
+
+    /**
+     * finds the minimum number of FIFO lanes that meets the target next to the given priority lanes
+     * @param priorityLanes
+     * @param maxPriorityItems
+     * @param fifoBound         the number of FIFO lanes that is known to be sufficient, at most
+     * @return  the minimum number of FIFO lanes, or the given bound if it cannot be improved on
+     */
+    private int searchRow(int priorityLanes, int maxPriorityItems, int fifoBound) {
+        // at least one lane is needed, and only configurations that are not more expensive than the best are tried
+        int low = priorityLanes == 0 ? 1 : 0;
+        int high = Math.min(fifoBound, maxLanes - priorityLanes);
+        double budget = getBestCost() - priorityLanes * priorityLaneCost;
+        if (budget < Double.POSITIVE_INFINITY) {
+            high = Math.min(high, (int) Math.floor(budget / fifoLaneCost + 1e-9));
+        }
+        if (high < low) return fifoBound;
+
+        ScenarioResult feasible = evaluate(new int[]{high}, priorityLanes, maxPriorityItems).get(0);
+        if (!meetsTarget(feasible)) return fifoBound;
+
+        // bisect between an infeasible number (or the sentinel below the range) and a feasible number of FIFO lanes
+        int infeasibleLanes = low - 1;
+        int feasibleLanes = high;
+        while (feasibleLanes - infeasibleLanes > 1) {
+            int nProbes = Math.min(ForkJoinPool.getCommonPoolParallelism(), feasibleLanes - infeasibleLanes - 1);
+            int[] probes = new int[nProbes];
+            for (int p = 0; p < nProbes; p++) {
+                probes[p] = infeasibleLanes + (int) ((long) (feasibleLanes - infeasibleLanes) * (p + 1) / (nProbes + 1));
+            }
+            List<ScenarioResult> results = evaluate(probes, priorityLanes, maxPriorityItems);
+            int first = 0;
+            while (first < nProbes && !meetsTarget(results.get(first))) first++;
+            if (first < nProbes) {
+                feasibleLanes = probes[first];
+                feasible = results.get(first);
+            }
+            if (first > 0) {
+                infeasibleLanes = probes[first - 1];
+            }
+        }
+
+        offer(new StaffingPlan(feasibleLanes, priorityLanes, maxPriorityItems,
+                feasibleLanes * fifoLaneCost + priorityLanes * priorityLaneCost, feasible));
+        return feasibleLanes;
+    }
+
+    // simulates the configurations with the given numbers of FIFO lanes in parallel
+    private List<ScenarioResult> evaluate(int[] fifoLanes, int priorityLanes, int maxPriorityItems) {
+        ScenarioRunner runner = new ScenarioRunner(dataset);
+        for (int lanes : fifoLanes) {
+            runner.addScenario(lanes + "F" + priorityLanes + "P" + maxPriorityItems,
+                    () -> createCashiers(lanes, priorityLanes, maxPriorityItems));
+        }
+        evaluations.addAndGet(fifoLanes.length);
+        return runner.runAll();
+    }
+
+    private static List<Cashier> createCashiers(int fifoLanes, int priorityLanes, int maxPriorityItems) {
+        List<Cashier> cashiers = new ArrayList<>();
+        for (int c = 1; c <= fifoLanes; c++) {
+            cashiers.add(new FIFOCashier("FIFO-" + c));
+        }
+        for (int c = 1; c <= priorityLanes; c++) {
+            cashiers.add(new PriorityCashier("PRIO-" + c, maxPriorityItems));
+        }
+        return cashiers;
+    }
+
+    private boolean meetsTarget(ScenarioResult result) {
+        return result.getWaitingTimes().getValueAtPercentile(95) <= maxP95WaitingTime;
+    }
+
+    private synchronized double getBestCost() {
+        return bestPlan == null ? Double.POSITIVE_INFINITY : bestPlan.getCost();
+    }
+
+    private synchronized void offer(StaffingPlan plan) {
+        if (plan.isBetterThan(bestPlan)) {
+            bestPlan = plan;
+        }
+    }
+}
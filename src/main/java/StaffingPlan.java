@@ -0,0 +1,71 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.Locale;
+
+/**
+ * a cashier configuration that has been found by the staffing optimizer, with its simulated results
+ */
+public class StaffingPlan {
+    private final int fifoLanes;            // number of FIFO cashiers
+    private final int priorityLanes;        // number of priority cashiers
+    private final int maxPriorityItems;     // priority limit of the priority cashiers
+    private final double cost;              // cost of the lanes
+    private final ScenarioResult result;    // simulated results of the configuration
+
+    public StaffingPlan(int fifoLanes, int priorityLanes, int maxPriorityItems, double cost, ScenarioResult result) {
+        this.fifoLanes = fifoLanes;
+        this.priorityLanes = priorityLanes;
+        this.maxPriorityItems = maxPriorityItems;
+        this.cost = cost;
+        this.result = result;
+    }
+
+    /**
+     * plans are ordered by their cost, then by their number of lanes, their number of priority lanes
+     * and their priority limit
+     * @param other
+     * @return whether this plan is to be preferred over the other plan
+     */
+    boolean isBetterThan(StaffingPlan other) {
+        if (other == null) return true;
+        if (cost != other.cost) return cost < other.cost;
+        int lanes = fifoLanes + priorityLanes;
+        int otherLanes = other.fifoLanes + other.priorityLanes;
+        if (lanes != otherLanes) return lanes < otherLanes;
+        if (priorityLanes != other.priorityLanes) return priorityLanes < other.priorityLanes;
+        return maxPriorityItems < other.maxPriorityItems;
+    }
+
+    public int getFifoLanes() {
+        return fifoLanes;
+    }
+
+    public int getPriorityLanes() {
+        return priorityLanes;
+    }
+
+    public int getMaxPriorityItems() {
+        return maxPriorityItems;
+    }
+
+    public double getCost() {
+        return cost;
+    }
+
+    public int getP95WaitingTime() {
+        return result.getWaitingTimes().getValueAtPercentile(95);
+    }
+
+    public ScenarioResult getResult() {
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d FIFO + %d PRIO(%d) lanes, cost %.2f, p95-wait %d",
+                fifoLanes, priorityLanes, maxPriorityItems, cost, getP95WaitingTime());
+    }
+}
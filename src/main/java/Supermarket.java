@@ -3,26 +3,31 @@
  * @author  hbo-ict@hva.nl
  */
 import utils.SLF4J;
+import utils.SimulationMetrics;
+import utils.SimulationMetrics.Timer;
 import utils.XMLParser;
 import utils.XMLWriter;
 import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalTime;
 import java.util.*;
+import java.util.function.Supplier;
 
 public class Supermarket {
     public String name;                 // name of the case for reporting purposes
-    private Set<Product> products;      // a set of products that is being sold in the supermarket
-    private List<Customer> customers;   // a list of customers that have visited the supermarket
+    private ProductCatalogue products;  // a set of products that is being sold in the supermarket, indexed by code
+    private VersionedList<Customer> customers;  // a list of customers that have visited the supermarket
+    private ArrivalIndex arrivalIndex;  // arrival order of the customers, built when it is first needed
+    private long arrivalIndexVersion;   // version of the list of customers from which the arrival index was built
     private List<Cashier> cashiers;     // the cashiers which have been configured to handle the customers
 
     private LocalTime openTime;         // start time of the simulation
     private LocalTime closingTime;      // end time of the simulation
-
-    private double overallAverageWaitingTime;
-    private double overallMaxWaitingTime;
-    private double overallAverageCheckoutTime;
-    private int overallIdleTime;
-    private int overallQueueLength;
+    private TimeSeriesRecorder timeSeriesRecorder;  // samples the cashiers during the simulation, if any
+    // creates the way in which arriving customers choose their cashier, anew for every simulation
+    private Supplier<CashierSelectionPolicy> selectionPolicy = CashierSelectionPolicy::minimumWaitingTime;
 
     public Supermarket(String name, LocalTime openTime, LocalTime closingTime) {
         this.name = name;
@@ -30,8 +35,50 @@ public class Supermarket {
         this.setClosingTime(closingTime);
         this.cashiers = new ArrayList<>();
         // TODO create empty data structures for products and customers
-        this.products = new HashSet<>();
-        this.customers = new ArrayList<>();
+        this.products = new ProductCatalogue();
+        this.customers = new VersionedList<>();
+    }
+
+    /**
+     * creates a copy of this supermarket for a separate simulation run with its own cashiers
+     * the products are shared, the customers are copied such that the simulation results
+     * of the copy do not leak into the customers of this supermarket
+     * @param name      name of the copy for reporting purposes
+     * @param cashiers  the cashiers of the copy
+     * @return
+     */
+    public Supermarket copyForSimulation(String name, List<Cashier> cashiers) {
+        Supermarket copy = new Supermarket(name, this.openTime, this.closingTime);
+        copy.products = this.products;
+        copy.selectionPolicy = this.selectionPolicy;
+        copy.cashiers.addAll(cashiers);
+        for (Customer customer : this.customers) {
+            copy.customers.add(new Customer(customer));
+        }
+        // the copied customers are in the same order, so every copy reuses the sorted arrivals
+        copy.arrivalIndex = getArrivalIndex();
+        copy.arrivalIndexVersion = copy.customers.getVersion();
+        return copy;
+    }
+
+    /**
+     * creates a copy of this supermarket for a separate simulation run with its own cashiers
+     * and random customers instead of the customers of this supermarket; the products are shared
+     * @param name      name of the copy for reporting purposes
+     * @param cashiers  the cashiers of the copy
+     * @param nCustomers
+     * @param averageNrItems
+     * @param seed      the same seed always produces the same customers
+     * @return
+     */
+    public Supermarket copyWithRandomCustomers(String name, List<Cashier> cashiers,
+                                               int nCustomers, int averageNrItems, long seed) {
+        Supermarket copy = new Supermarket(name, this.openTime, this.closingTime);
+        copy.products = this.products;
+        copy.selectionPolicy = this.selectionPolicy;
+        copy.cashiers.addAll(cashiers);
+        copy.addRandomCustomers(nCustomers, averageNrItems, seed);
+        return copy;
     }
 
     public int getTotalNumberOfItems() {
@@ -58,18 +105,16 @@ public class Supermarket {
             return;
         }
 
+        // aggregate all customer statistics in a single pass
+        CustomerStatistics statistics = calculateCustomerStatistics();
+
         System.out.printf("%d customers have shopped %d items out of %d different products\n",
-                this.customers.size(), this.getTotalNumberOfItems(), this.products.size());
+                statistics.getNumberOfCustomers(), statistics.getTotalNumberOfItems(), this.products.size());
 
         System.out.printf("Revenues and most bought product per zip-code:");
-        Map<String, Double> revenues = revenueByZipCode();
-        Map<String, Product> populars = mostBoughtProductByZipCode();
-
+        Map<String, Double> revenues = statistics.getRevenueByZipCode();
+        Map<String, Product> populars = statistics.getMostBoughtProductByZipCode();
 
-        double totalRevenue = 0.0;
-        // TODO: display the calculated revenues and most bought products.
-        // TODO: calculate the total revenue.
-        // Loop through the revenues map and add all total revenues.
         int index = 0;
         for (Map.Entry<String, Double> entry1 : revenues.entrySet()) {
             System.out.print((index % 3 == 0) ? "\n\t" : ", ");
@@ -77,22 +122,36 @@ public class Supermarket {
             Double revenue = entry1.getValue();
             Product product = populars.get(key);
             System.out.printf("%s:%.2f(%s)", key, revenue, product);
-            totalRevenue += revenue;
             index++;
         }
 
-        System.out.printf("\nTotal Revenue=%.2f\n", totalRevenue);
+        System.out.printf("\nTotal Revenue=%.2f\n", statistics.getTotalRevenue());
     }
 
     /**
      * reports results of the cashier simulation
+     * the overall results merge the histograms of all cashiers, so averages and percentiles are customer weighted
      */
     public void printSimulationResults() {
+        printSimulationResults(this.cashiers);
+    }
+
+    /**
+     * reports results of a cashier simulation per cashier and overall
+     * @param cashiers  the simulated cashiers
+     */
+    public static void printSimulationResults(List<Cashier> cashiers) {
 
         System.out.printf("\nSimulation scenario results:\n");
-        System.out.printf("Cashiers:     n-customers:  avg-wait-time: max-wait-time: max-queue-length: avg-check-out-time: idle-time:\n");
+        System.out.printf("Cashiers:     n-customers:  avg-wait-time: max-wait-time: max-queue-length: avg-check-out-time: idle-time:" +
+                "  p50-wait: p95-wait: p99-wait: p99.9-wait:\n");
         System.out.println();
 
+        Histogram overallWaitingTimes = new Histogram();
+        Histogram overallCheckOutTimes = new Histogram();
+        Histogram overallQueueLengths = new Histogram();
+        int overallIdleTime = 0;
+
         // DONE: report simulation results per cashier:
         for (Cashier cashier : cashiers) {
             String name = cashier.getName();
@@ -103,27 +162,37 @@ public class Supermarket {
             double averageCheckoutTime = cashier.getAverageCheckOutTime();      //  e) average check-out time of customers at the given cashier
             int totalIdleTime = cashier.totalIdleTime;                          //  f) total idle time of the cashier
 
-            // DONE: report the same overall simulation results across all cashiers
-            // as customer weighted averages or sums of totals.
+            printSimulationResult(name, numberOfCustomers, averageWaitingTime, maxWaitingTime,
+                    maxQueueLength, averageCheckoutTime, totalIdleTime, cashier.getWaitingTimes());
 
-            System.out.printf("%s:\t\t\t\t%d\t\t\t%.2f\t\t\t%.2f\t\t\t%d\t\t\t\t%.2f\t\t\t%d%n", name, numberOfCustomers, averageWaitingTime, maxWaitingTime,
-                    maxQueueLength, averageCheckoutTime, totalIdleTime);
-
-            this.overallAverageWaitingTime += averageWaitingTime;
-            this.overallAverageCheckoutTime += averageCheckoutTime;
-            this.overallIdleTime += totalIdleTime;
-            if (this.overallQueueLength < maxQueueLength) {
-                overallQueueLength = maxQueueLength;
-            }
-            if (this.overallMaxWaitingTime < maxWaitingTime) {
-                overallMaxWaitingTime = maxWaitingTime;
-            }
+            overallWaitingTimes.merge(cashier.getWaitingTimes());
+            overallCheckOutTimes.merge(cashier.getCheckOutTimes());
+            overallQueueLengths.merge(cashier.getQueueLengths());
+            overallIdleTime += totalIdleTime;
         }
-        // Done: report the same overall simulation results across all cashiers
+        // DONE: report the same overall simulation results across all cashiers
         //  as customer weighted averages or sums of totals.
-        System.out.printf("Overall:\t\t\t%d\t\t\t%.2f\t\t\t%.2f\t\t\t%d\t\t\t\t%.2f\t\t\t%d%n", customers.size(), overallAverageWaitingTime / cashiers.size(),
-                overallMaxWaitingTime, overallQueueLength, overallAverageCheckoutTime / cashiers.size(), overallIdleTime);
-        resetOverallTimes();
+        printSimulationResult("Overall", (int) overallCheckOutTimes.getTotalCount(), overallWaitingTimes.getMean(),
+                overallWaitingTimes.getMax(), overallQueueLengths.getMax(), overallCheckOutTimes.getMean(),
+                overallIdleTime, overallWaitingTimes);
+    }
+
+    private static void printSimulationResult(String name, int numberOfCustomers, double averageWaitingTime,
+                                              double maxWaitingTime, int maxQueueLength, double averageCheckoutTime,
+                                              int totalIdleTime, Histogram waitingTimes) {
+        System.out.printf("%s:\t\t\t\t%d\t\t\t%.2f\t\t\t%.2f\t\t\t%d\t\t\t\t%.2f\t\t\t%d\t\t%d\t\t%d\t\t%d\t\t%d%n",
+                name, numberOfCustomers, averageWaitingTime, maxWaitingTime, maxQueueLength, averageCheckoutTime,
+                totalIdleTime, waitingTimes.getValueAtPercentile(50), waitingTimes.getValueAtPercentile(95),
+                waitingTimes.getValueAtPercentile(99), waitingTimes.getValueAtPercentile(99.9));
+    }
+
+    /**
+     * aggregates the purchases of all customers per zip code in a single pass,
+     * in parallel for larger numbers of customers
+     * @return
+     */
+    public CustomerStatistics calculateCustomerStatistics() {
+        return CustomerStatistics.of(this.customers);
     }
 
     /**
@@ -131,94 +200,186 @@ public class Supermarket {
      * @return
      */
     public Map<String, Double> revenueByZipCode() {
-        Map<String, Double> revenues = new TreeMap<>();
-
-        // TODO create an appropriate data structure for the revenues
-        //  and calculate its contents
-        // Loop through customer list and add the total bill of each customer.
-        for (Customer customer : customers) {
-            revenues.put(customer.getZipCode(), revenues.getOrDefault(customer.getZipCode(), 0.0) + customer.calculateTotalBill());
-        }
-
-        return revenues;
+        return calculateCustomerStatistics().getRevenueByZipCode();
     }
 
     /**
      * calculates a map of most bought products per zip code that is also ordered by zip code
+     * the most bought product of a zip code has the highest total amount bought by customers of that zip code
      * if multiple products have the same maximum count, just pick one.
      * @return
      */
     public Map<String, Product> mostBoughtProductByZipCode() {
-        Map<String, Product> mostBought = new TreeMap<>();
-        Purchase mostBoughtProduct = null;
-
-        // TODO create an appropriate data structure for the mostBought
-        //  and calculate its contents
-        // Loop through customer list and save the current most bought product.
-        for (Customer customer : customers) {
-            // Loop through all purchased items of a customer.
-            for (Purchase item : customer.getItems()) {
-                // It only counts the first product with the highest amount so I don't need additional checks.
-                if (mostBoughtProduct == null || item.getAmount() > mostBoughtProduct.getAmount()) {
-                    mostBought.put(customer.getZipCode(), item.getProduct());
-                    mostBoughtProduct = item;
-                }
-            }
-
-        }
-        return mostBought;
+        return calculateCustomerStatistics().getMostBoughtProductByZipCode();
     }
 
     /**
      * simulate the cashiers while handling all customers that enter their queues
      */
     public void simulateCashiers() {
+        final long start = SimulationMetrics.startTimer();
+
+        // all cashiers restart at open time
+        CheckoutSimulator simulator = newSimulator();
+
+        // let all customers arrive in order of arrival time;
+        // the simulator redirects them to the cashier of their choice at their arrival time
+        simulator.scheduleArrivals(this.customers, getArrivalIndex());
 
-        Queue<Customer> shoppingQueue = new PriorityQueue<>(customers);
+        finishSimulation(simulator);
+        SimulationMetrics.stopTimer(Timer.SIMULATION, start);
+    }
 
+    /**
+     * simulate the cashiers on the customers of a columnar store instead of the customers of the supermarket
+     * a Customer is only created for a stored customer when he arrives,
+     * so only the customers that are waiting or being served are kept in memory as objects
+     * @param store
+     */
+    public void simulateCashiers(CustomerStore store) {
+        final long start = SimulationMetrics.startTimer();
         // all cashiers restart at open time
-        for (Cashier c : this.cashiers) {
-            c.reStart(this.openTime);
+        CheckoutSimulator simulator = newSimulator();
+
+        ArrivalIndex arrivalIndex = store.getArrivalIndex();
+        for (int i = 0; i < arrivalIndex.size(); i++) {
+            simulator.scheduleArrival(store.getCustomer(arrivalIndex.getCustomer(i)));
+            simulator.processNextArrival();
         }
 
-        // poll the customers from the queue one by one
-        // and redirect them to the cashier of their choice
+        finishSimulation(simulator);
+        SimulationMetrics.stopTimer(Timer.SIMULATION, start);
+    }
 
-        Customer nextCustomer = shoppingQueue.poll();
+    /**
+     * simulate the cashiers from open time until the given time and take a checkpoint of the simulation,
+     * from which what-if branches can continue without simulating the start of the day again
+     * the cashiers of the supermarket are left at the time of the checkpoint
+     * @param checkpointTime
+     * @return
+     */
+    public SimulationCheckpoint simulateUntil(LocalTime checkpointTime) {
+        final long start = SimulationMetrics.startTimer();
+        CheckoutSimulator simulator = newSimulator();
+        simulator.scheduleArrivals(this.customers, getArrivalIndex());
+        SimulationCheckpoint checkpoint = simulator.checkpointAt(checkpointTime.toSecondOfDay());
+        SimulationMetrics.stopTimer(Timer.SIMULATION, start);
+        return checkpoint;
+    }
 
-        while (nextCustomer != null) {
+    /**
+     * continue the simulation of a checkpoint until the end of the day, with copies of the cashiers of the checkpoint
+     * @param name              name of the branch for reporting purposes
+     * @param checkpoint
+     * @param openedCashiers    extra cashiers that open at the time of the checkpoint
+     * @return  the branch, whose cashiers hold the results of the whole day
+     */
+    public Supermarket simulateBranch(String name, SimulationCheckpoint checkpoint, List<Cashier> openedCashiers) {
+        return simulateBranch(name, checkpoint, openedCashiers, Set.of());
+    }
 
-            // let all cashiers finish up their work before the given arrival time of the customer
-            for (Cashier c : this.cashiers) {
-                c.doTheWorkUntil(nextCustomer.getQueuedAt());
+    /**
+     * continue the simulation of a checkpoint until the end of the day, with copies of the cashiers of the checkpoint
+     * @param name              name of the branch for reporting purposes
+     * @param checkpoint
+     * @param openedCashiers    extra cashiers that open at the time of the checkpoint
+     * @param closedCashiers    names of the cashiers that close at the time of the checkpoint,
+     *                          they still serve the customers in their queue
+     * @return  the branch, whose cashiers hold the results of the whole day
+     */
+    public Supermarket simulateBranch(String name, SimulationCheckpoint checkpoint, List<Cashier> openedCashiers,
+                                      Set<String> closedCashiers) {
+        final long start = SimulationMetrics.startTimer();
+        CheckoutSimulator simulator = checkpoint.fork();
+        simulator.setSelectionPolicy(this.selectionPolicy.get());
+        for (Cashier cashier : new ArrayList<>(simulator.getCashiers())) {
+            if (closedCashiers.contains(cashier.getName())) {
+                simulator.closeCashier(cashier);
             }
-            // ask the customer about his preferred cashier for the check-out
-            Cashier selectedCashier = nextCustomer.selectCashier(this.cashiers);
-            // redirect the customer to the selected cashier
-            selectedCashier.add(nextCustomer);
-
-            nextCustomer = shoppingQueue.poll();
         }
+        for (Cashier cashier : openedCashiers) {
+            simulator.openCashier(cashier);
+        }
+
+        Supermarket branch = new Supermarket(name, this.openTime, this.closingTime);
+        branch.products = this.products;
+        branch.selectionPolicy = this.selectionPolicy;
+        branch.cashiers = simulator.getCashiers();
+        branch.finishSimulation(simulator);
+        SimulationMetrics.stopTimer(Timer.SIMULATION, start);
+        return branch;
+    }
 
+    private CheckoutSimulator newSimulator() {
+        CheckoutSimulator simulator = new CheckoutSimulator(this.cashiers, this.openTime);
+        simulator.setRecorder(this.timeSeriesRecorder);
+        simulator.setSelectionPolicy(this.selectionPolicy.get());
+        return simulator;
+    }
+
+    /**
+     * lets the simulator handle all remaining customers
+     * @param simulator
+     */
+    private void finishSimulation(CheckoutSimulator simulator) {
         // all customers have been handled;
         // cashiers finish their work until closing time + some overtime
         final int overtime = 15*60;
+        simulator.closeAt(this.closingTime.toSecondOfDay() + overtime);
         for (Cashier c : this.cashiers) {
-            c.doTheWorkUntil(this.closingTime.plusSeconds(overtime));
             // remove the overtime from the current time and the idle time of the cashier
-            c.setCurrentTime(c.getCurrentTime().minusSeconds(overtime));
+            c.setCurrentSecondOfDay(c.getCurrentSecondOfDay() - overtime);
             c.setTotalIdleTime(c.getTotalIdleTime()-overtime);
         }
     }
 
+    public Supplier<CashierSelectionPolicy> getSelectionPolicy() {
+        return selectionPolicy;
+    }
+
+    /**
+     * sets the way in which arriving customers choose their cashier in the next simulations
+     * every simulation, also of a copy of this supermarket, gets a new policy,
+     * so copies that are simulated in parallel never share the state of a policy
+     * @param selectionPolicy   creates a new selection policy for every simulation
+     */
+    public void setSelectionPolicy(Supplier<CashierSelectionPolicy> selectionPolicy) {
+        this.selectionPolicy = selectionPolicy;
+    }
+
+    public TimeSeriesRecorder getTimeSeriesRecorder() {
+        return timeSeriesRecorder;
+    }
+
+    /**
+     * samples the cashiers during the next simulations
+     * @param timeSeriesRecorder    prepared for the cashiers of the supermarket, or null to stop sampling
+     */
+    public void setTimeSeriesRecorder(TimeSeriesRecorder timeSeriesRecorder) {
+        this.timeSeriesRecorder = timeSeriesRecorder;
+    }
+
     public List<Cashier> getCashiers() {
         return cashiers;
     }
 
-    public Set<Product> getProducts() {
+    public ProductCatalogue getProducts() {
         return products;
     }
 
+    /**
+     * the customers in order of arrival, which is sorted once and reused by all simulations of these customers
+     * and of copies of them; it is sorted again when a customer has been added, removed or replaced
+     * @return
+     */
+    public ArrivalIndex getArrivalIndex() {
+        if (arrivalIndex == null || arrivalIndexVersion != customers.getVersion()) {
+            arrivalIndex = ArrivalIndex.of(customers);
+            arrivalIndexVersion = customers.getVersion();
+        }
+        return arrivalIndex;
+    }
+
     public List<Customer> getCustomers() {
         return customers;
     }
@@ -245,19 +406,71 @@ public class Supermarket {
      * @return
      */
     public static Supermarket importFromXML(String resourceName) {
-        XMLParser xmlParser = new XMLParser(resourceName);
+        return importFromXML(resourceName, new XMLParser(resourceName));
+    }
 
+    /**
+     * Loads a complete supermarket configuration from an XML input stream, e.g. of a file outside the resources
+     * @param name          name of the supermarket for reporting purposes
+     * @param inputStream   the XML content
+     * @return
+     */
+    public static Supermarket importFromXML(String name, InputStream inputStream) {
+        return importFromXML(name, new XMLParser(inputStream));
+    }
+
+    private static Supermarket importFromXML(String resourceName, XMLParser xmlParser) {
+        final long start = SimulationMetrics.startTimer();
         try {
-            xmlParser.nextTag();
-            xmlParser.require(XMLStreamConstants.START_ELEMENT, null, "supermarket");
-            LocalTime openTime = LocalTime.parse(xmlParser.getAttributeValue(null, "openTime"));
-            LocalTime closingTime = LocalTime.parse(xmlParser.getAttributeValue(null, "closingTime"));
-            xmlParser.nextTag();
+            Supermarket supermarket = importProductsFromXML(xmlParser, resourceName);
+            Customer.importCustomersFromXML(xmlParser, supermarket.customers, supermarket.products);
+            SimulationMetrics.stopTimer(Timer.IMPORT, start);
 
-            Supermarket supermarket = new Supermarket(resourceName, openTime, closingTime);
+            return supermarket;
 
-            Product.importProductsFromXML(xmlParser, supermarket.products);
-            Customer.importCustomersFromXML(xmlParser, supermarket.customers, supermarket.products);
+        } catch (Exception ex) {
+            SLF4J.logException("XML error in '" + resourceName + "'", ex);
+        }
+
+        return null;
+    }
+
+    /**
+     * Simulates the given cashiers on the customers of an XML file, while reading the customers one by one.
+     * Only the customers that are still waiting or being served are kept in memory,
+     * so the customers are not available from the supermarket afterwards.
+     * The customers should appear in the file in order of arrival;
+     * a reorder buffer holds back up to reorderWindow customers to put a nearly sorted file in order.
+     * @param resourceName  the XML file name to be found in the resources folder
+     * @param cashiers      the cashiers that handle the customers
+     * @param reorderWindow the maximum number of customers that is held back to restore arrival order
+     * @return  the supermarket with its products and simulated cashiers
+     */
+    public static Supermarket simulateFromXML(String resourceName, List<Cashier> cashiers, int reorderWindow) {
+        XMLParser xmlParser = new XMLParser(resourceName);
+
+        try {
+            Supermarket supermarket = importProductsFromXML(xmlParser, resourceName);
+            supermarket.cashiers.addAll(cashiers);
+
+            // the event calendar of the simulator acts as the reorder buffer
+            CheckoutSimulator simulator = supermarket.newSimulator();
+            if (xmlParser.nextBeginTag("customers")) {
+                xmlParser.nextTag();
+                Customer customer;
+                while ((customer = Customer.importFromXML(xmlParser, supermarket.products)) != null) {
+                    if (customer.getQueuedAt().toSecondOfDay() < simulator.getClock()) {
+                        throw new XMLStreamException("Customer arriving at " + customer.getQueuedAt() +
+                                " is out of order beyond the reorder window of " + reorderWindow, xmlParser.getLocation());
+                    }
+                    simulator.scheduleArrival(customer);
+                    if (simulator.getPendingArrivals() > reorderWindow) {
+                        simulator.processNextArrival();
+                    }
+                }
+                xmlParser.findAndAcceptEndTag("customers");
+            }
+            supermarket.finishSimulation(simulator);
 
             return supermarket;
 
@@ -268,21 +481,71 @@ public class Supermarket {
         return null;
     }
 
+    /**
+     * Reads the opening hours and the products of a supermarket configuration from the xml stream
+     * @param xmlParser
+     * @param name
+     * @return  a supermarket without customers
+     * @throws XMLStreamException
+     */
+    private static Supermarket importProductsFromXML(XMLParser xmlParser, String name) throws XMLStreamException {
+        xmlParser.nextTag();
+        xmlParser.require(XMLStreamConstants.START_ELEMENT, null, "supermarket");
+        LocalTime openTime = LocalTime.parse(xmlParser.getAttributeValue(null, "openTime"));
+        LocalTime closingTime = LocalTime.parse(xmlParser.getAttributeValue(null, "closingTime"));
+        xmlParser.nextTag();
+
+        Supermarket supermarket = new Supermarket(name, openTime, closingTime);
+
+        Product.importProductsFromXML(xmlParser, supermarket.products);
+        return supermarket;
+    }
+
     /**
      * Exports the supermarket configuration to an xml configuration file
      * that can be shared and read in by a main
      * @param resourceName
      */
     public void exportXML(String resourceName) {
-        XMLWriter xmlWriter = new XMLWriter(resourceName);
+        exportXML(resourceName, this.customers.iterator());
+
+        // update the name of the supermarket
+        this.name = resourceName;
+    }
+
+    /**
+     * Exports the opening hours and products of the supermarket together with the given customers
+     * to an xml configuration file
+     * @param resourceName
+     * @param customers
+     */
+    public void exportXML(String resourceName, Iterator<Customer> customers) {
+        exportXML(resourceName, customers, true);
+    }
+
+    /**
+     * Exports the opening hours and products of the supermarket together with the given customers
+     * to an xml configuration file, through a buffered stream.
+     * the customers are written one by one as the iterator produces them;
+     * a compact file without indentation is faster to write and read,
+     * and a resourceName ending with .gz gives a gzip compressed file
+     * @param resourceName
+     * @param customers
+     * @param indenting     false for a compact file
+     */
+    public void exportXML(String resourceName, Iterator<Customer> customers, boolean indenting) {
+        final long start = SimulationMetrics.startTimer();
+        XMLWriter xmlWriter = new XMLWriter(resourceName, indenting);
+        // line breaks within the root tag only serve readability
+        String attributeBreak = indenting ? "\n\t" : "";
 
         try {
             xmlWriter.writeStartDocument();
             xmlWriter.writeStartElement("supermarket");
             xmlWriter.writeAttribute("xmlns:xsi", "http://www.w3.org/2001/XMLSchema-instance");
-            xmlWriter.writeAttribute("\n\txsi:noNamespaceSchemaLocation", "supermarket.xsd");
-            xmlWriter.writeAttribute("\n\topenTime", this.openTime.toString().concat(":00").substring(0, 8));
-            xmlWriter.writeAttribute("closingTime", this.closingTime.toString().concat(":00").substring(0, 8));
+            xmlWriter.writeAttribute(attributeBreak + "xsi:noNamespaceSchemaLocation", "supermarket.xsd");
+            xmlWriter.writeAttribute(attributeBreak + "openTime", XMLWriter.formatTime(this.openTime.toSecondOfDay()));
+            xmlWriter.writeAttribute("closingTime", XMLWriter.formatTime(this.closingTime.toSecondOfDay()));
             if (this.products instanceof Collection && this.products.size() > 0) {
                 xmlWriter.writeStartElement("products");
                 for (Product p : this.products) {
@@ -290,20 +553,62 @@ public class Supermarket {
                 }
                 xmlWriter.writeEndElement();
             }
-            if (this.products instanceof Collection && this.customers.size() > 0) {
+            if (customers.hasNext()) {
                 xmlWriter.writeStartElement("customers");
-                for (Customer c : this.customers) {
-                    c.exportToXML(xmlWriter);
+                while (customers.hasNext()) {
+                    customers.next().exportToXML(xmlWriter);
                 }
                 xmlWriter.writeEndElement();
             }
             xmlWriter.writeEndDocument();
+            xmlWriter.flush();
+            SimulationMetrics.stopTimer(Timer.EXPORT, start);
         } catch (Exception ex) {
             SLF4J.logException("XML writing error in '" + resourceName + "'", ex);
+        } finally {
+            // the file is closed also when writing fails half way
+            try {
+                xmlWriter.close();
+            } catch (Exception ex) {
+                SLF4J.logException("XML closing error in '" + resourceName + "'", ex);
+            }
+        }
+    }
+
+    /**
+     * Exports the supermarket configuration to a compact binary dataset file
+     * that can be opened quickly through memory mapping
+     * @param fileName
+     */
+    public void exportBinary(String fileName) {
+        final long start = SimulationMetrics.startTimer();
+        try {
+            BinaryDataset.write(this, fileName);
+            SimulationMetrics.stopTimer(Timer.EXPORT, start);
+        } catch (IOException ex) {
+            SLF4J.logException("Binary writing error in '" + fileName + "'", ex);
         }
 
         // update the name of the supermarket
-        this.name = resourceName;
+        this.name = fileName;
+    }
+
+    /**
+     * Loads a complete supermarket configuration from a binary dataset file
+     * @param fileName
+     * @return
+     */
+    public static Supermarket importFromBinary(String fileName) {
+        final long start = SimulationMetrics.startTimer();
+        try {
+            Supermarket supermarket = BinaryDataset.open(fileName).toSupermarket(fileName);
+            SimulationMetrics.stopTimer(Timer.IMPORT, start);
+            return supermarket;
+        } catch (IOException ex) {
+            SLF4J.logException("Binary dataset error in '" + fileName + "'", ex);
+        }
+
+        return null;
     }
 
     /**
@@ -317,67 +622,55 @@ public class Supermarket {
      * @param averageNrItems
      */
     public void addRandomCustomers(int nCustomers, int averageNrItems) {
-        if (!(this.products instanceof Collection) ||
-                !(this.customers instanceof Collection)
-        )   return;
-
-        // copy the product to an array for easy random selection
-        Product[] prods = new Product[this.products.size()];
-        prods = this.products.toArray(prods);
-
-        // compute an arrival interval range of at least 60 seconds that ends one minute before closing time if possible
-        int maxArrivalSeconds = Math.max(60, closingTime.toSecondOfDay() - openTime.toSecondOfDay() - 60);
-
-        for (int i = 0; i < nCustomers; i++) {
-            // create a random customer with random arrival time and zip code
-            Customer c = new Customer(
-                    this.openTime.plusSeconds(randomizer.nextInt(maxArrivalSeconds)),
-                    generateRandomZIPCode());
-
-            // select a random number of bought items
-            int remainingNumberOfItems = selectRandomNrItems(averageNrItems);
-
-            // build a random distribution of these items across available products
-            int upper = prods.length;
-            while (remainingNumberOfItems > 0) {
-                int count = 1 + randomizer.nextInt(remainingNumberOfItems);
-                // pick a random product that has not been used yet by this customer
-                int pIdx = randomizer.nextInt(upper);
-                Purchase pu = new Purchase(prods[pIdx], count);
-                c.getItems().add(pu);
-                // System.out.println(c.toString() + pu.toString());
-                remainingNumberOfItems -= count;
-                // move the product out of the range of available products for this customer
-                upper--;
-                Product pt = prods[upper];
-                prods[upper] = prods[pIdx];
-                prods[pIdx] = pt;
-            }
-
-            this.customers.add(c);
-        }
+        addRandomCustomers(nCustomers, averageNrItems, new SplittableRandom().nextLong());
     }
 
-    private static Random randomizer = new Random();
+    /**
+     * adds a collection of random customers to the configuration, generated in parallel;
+     * the same seed always produces the same customers
+     * @param nCustomers
+     * @param averageNrItems
+     * @param seed
+     */
+    public void addRandomCustomers(int nCustomers, int averageNrItems, long seed) {
+        if (this.products.isEmpty()) return;
 
-    private static int selectRandomNrItems(int averageNrItems) {
-        return 1 + (int) ((4 * averageNrItems - 1) * randomizer.nextDouble() * randomizer.nextDouble());
+        this.customers.addAll(randomCustomerGenerator(seed).generate(nCustomers, averageNrItems));
     }
 
-    private static String generateRandomZIPCode() {
-        int randomDigit = randomizer.nextInt(5);
-        int randomChar1 = randomizer.nextInt(2);
-        int randomChar2 = randomizer.nextInt(2);
-        return String.valueOf(1013 + randomDigit) +
-                (char) (randomDigit + 9 * randomChar1 + randomChar2 + 'A') +
-                (char) (randomDigit + 3 * randomChar1 + 7 * randomChar2 + 'D');
+    /**
+     * Exports the supermarket configuration with random customers instead of its own customers
+     * to an xml configuration file; the customers are written while they are being generated,
+     * so they are never all held in memory
+     * @param resourceName
+     * @param nCustomers
+     * @param averageNrItems
+     * @param seed
+     * @param indenting     false for a compact file
+     */
+    public void exportRandomCustomersXML(String resourceName, int nCustomers, int averageNrItems, long seed,
+                                         boolean indenting) {
+        exportXML(resourceName, randomCustomerGenerator(seed).iterator(nCustomers, averageNrItems), indenting);
+    }
+
+    /**
+     * Exports the supermarket configuration with random customers instead of its own customers
+     * to a binary dataset file; the customers are generated into a compact columnar store
+     * @param fileName
+     * @param nCustomers
+     * @param averageNrItems
+     * @param seed
+     */
+    public void exportRandomCustomersBinary(String fileName, int nCustomers, int averageNrItems, long seed) {
+        try {
+            BinaryDataset.write(randomCustomerGenerator(seed).generateStore(nCustomers, averageNrItems),
+                    this.openTime, this.closingTime, fileName);
+        } catch (IOException ex) {
+            SLF4J.logException("Binary writing error in '" + fileName + "'", ex);
+        }
     }
-    // reset the
-    private void resetOverallTimes () {
-        overallAverageCheckoutTime = 0;
-        overallMaxWaitingTime = 0;
-        overallAverageWaitingTime = 0;
-        overallQueueLength = 0;
-        overallIdleTime = 0;
+
+    private CustomerGenerator randomCustomerGenerator(long seed) {
+        return new CustomerGenerator(this.products, this.openTime, this.closingTime, seed);
     }
 }
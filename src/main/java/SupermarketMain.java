@@ -1,5 +1,11 @@
+import utils.SimulationMetrics;
+
+import java.util.List;
+
 public class SupermarketMain {
     public static void main(String[] args) {
+        // expose the engine metrics to JMX when they have been enabled
+        SimulationMetrics.registerMBean();
 
         // load the simulation configuration with open and closing times
         // and products and customers
@@ -7,35 +13,22 @@ public class SupermarketMain {
                 Supermarket.importFromXML("jambi250_8.xml");
         supermarket.printCustomerStatistics();
 
-        // configure the cashiers for the base scenario
-        supermarket.getCashiers().clear();
-        // TODO Add a FIFO cashiers
-        //  (uncomment these lines once the FIFOCashier class has been implemented)
-        supermarket.getCashiers().add(new FIFOCashier("FIFO"));
-
-        // simulate the configuration and print the result
-        supermarket.simulateCashiers();
-        supermarket.printSimulationResults();
-
-        // configure the cashiers for the priority scenario
-        supermarket.getCashiers().clear();
-        // TODO Add a PRIO cashier respecting 5 priority items
-        //  (uncomment these lines once the PriorityCashier class has been implemented)
-        //supermarket.getCashiers().add(new PriorityCashier("PRIO",5));
-
-        // simulate the configuration and print the result
-        supermarket.simulateCashiers();
-        supermarket.printSimulationResults();
+        // configure the cashiers for the base, priority and self-service scenarios;
+        // each scenario gets its own new cashiers and its own copy of the customers
+        ScenarioRunner runner = new ScenarioRunner(supermarket)
+                .addScenario("FIFO", () -> List.of(new FIFOCashier("FIFO")))
+                .addScenario("PRIO", () -> List.of(new PriorityCashier("PRIO", 5)))
+                .addScenario("FIFO+PRIO", () -> List.of(new FIFOCashier("FIFO"), new PriorityCashier("PRIO", 5)));
 
-        // configure the cashiers for the self-service scenario
-        supermarket.getCashiers().clear();
-        // TODO Add 1 FIFO cashiers and 1 PRIO cashier
-        //  (uncomment these lines once the FIFO- and PriorityCashier class have been implemented)
-        //supermarket.getCashiers().add(new FIFOCashier("FIFO"));
-        //supermarket.getCashiers().add(new FIFOCashier("PRIO"));
+        // simulate the scenarios in parallel and print the results of every scenario, followed by a comparison
+        List<ScenarioResult> results = runner.runAll();
+        for (ScenarioResult result : results) {
+            Supermarket.printSimulationResults(result.getCashiers());
+        }
+        ScenarioRunner.printResults(results);
 
-        // simulate the configuration and print the result
-        supermarket.simulateCashiers();
-        supermarket.printSimulationResults();
+        if (SimulationMetrics.ENABLED) {
+            System.out.println("\nMetrics: " + SimulationMetrics.getInstance().getSummary());
+        }
     }
 }
@@ -0,0 +1,197 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import utils.XMLWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * samples the queue length, busy state and backlog of every cashier at a fixed simulated interval
+ * the samples are kept in ring buffers that are allocated up front, so sampling never allocates;
+ * when the buffers are full, the oldest samples are overwritten.
+ * the simulator takes a sample at every multiple of the interval after its start time,
+ * with all events until the sample time processed and every cashier brought up to date until that time.
+ *
+ * binary series layout (big-endian):
+ *   header:   magic, version, intervalSeconds, nCashiers, nSamples
+ *   cashiers: nCashiers names in modified UTF-8
+ *   samples:  sampleTime[nSamples], then per cashier queueLength[nSamples], busy[nSamples] as bytes, backlogSeconds[nSamples]
+ * samples are written from the oldest to the most recent
+ */
+public class TimeSeriesRecorder {
+    private static final int MAGIC = 0x534D5453;    // "SMTS"
+    private static final int VERSION = 1;
+
+    private final List<String> cashierNames = new ArrayList<>();
+    private final int interval;             // seconds between samples
+    private final int capacity;             // maximum number of samples that is kept
+    private final int[] sampleTimes;        // sample time per slot in seconds of the day
+    private final int[][] queueLengths;     // queue length per cashier per slot
+    private final boolean[][] busy;         // busy state per cashier per slot
+    private final int[][] backlogs;         // backlog in seconds per cashier per slot
+
+    private int nextSlot;                   // slot of the next sample
+    private int numberOfSamples;            // number of samples in the buffers
+    private int nextSampleTime;             // time of the next sample in seconds of the day
+
+    /**
+     * prepares the buffers for sampling the given cashiers
+     * @param cashiers
+     * @param intervalSeconds   simulated time between two samples
+     * @param capacity          number of samples that is kept, e.g. a day divided by the interval
+     * @throws IllegalArgumentException if the interval or capacity is not positive
+     */
+    public TimeSeriesRecorder(List<Cashier> cashiers, int intervalSeconds, int capacity) {
+        if (intervalSeconds <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Interval and capacity of a time series need to be positive");
+        }
+        for (Cashier cashier : cashiers) {
+            cashierNames.add(cashier.getName());
+        }
+        this.interval = intervalSeconds;
+        this.capacity = capacity;
+        this.sampleTimes = new int[capacity];
+        this.queueLengths = new int[cashiers.size()][capacity];
+        this.busy = new boolean[cashiers.size()][capacity];
+        this.backlogs = new int[cashiers.size()][capacity];
+    }
+
+    /**
+     * discards all samples and schedules the first sample at the start time
+     * @param startTime     in seconds of the day
+     */
+    void start(int startTime) {
+        nextSlot = 0;
+        numberOfSamples = 0;
+        nextSampleTime = startTime;
+    }
+
+    /**
+     * @return the time of the next sample in seconds of the day
+     */
+    int getNextSampleTime() {
+        return nextSampleTime;
+    }
+
+    /**
+     * records the state of the cashiers as the sample at the next sample time
+     * @param cashiers  the sampled cashiers, in the same order as they were given at construction
+     */
+    void sample(List<Cashier> cashiers) {
+        sampleTimes[nextSlot] = nextSampleTime;
+        for (int c = 0; c < queueLengths.length; c++) {
+            Cashier cashier = cashiers.get(c);
+            queueLengths[c][nextSlot] = cashier.getQueueLength();
+            busy[c][nextSlot] = cashier.isBusy();
+            backlogs[c][nextSlot] = cashier.getBacklogSeconds();
+        }
+        nextSlot = (nextSlot + 1) % capacity;
+        numberOfSamples = Math.min(numberOfSamples + 1, capacity);
+        nextSampleTime += interval;
+    }
+
+    public int getNumberOfCashiers() {
+        return cashierNames.size();
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return the number of samples that are available, at most the capacity
+     */
+    public int getNumberOfSamples() {
+        return numberOfSamples;
+    }
+
+    /**
+     * @param sample    index of the sample, 0 for the oldest available sample
+     * @return the time of the sample in seconds of the day
+     */
+    public int getSampleTime(int sample) {
+        return sampleTimes[slotOf(sample)];
+    }
+
+    public int getQueueLength(int cashier, int sample) {
+        return queueLengths[cashier][slotOf(sample)];
+    }
+
+    public boolean isBusy(int cashier, int sample) {
+        return busy[cashier][slotOf(sample)];
+    }
+
+    public int getBacklogSeconds(int cashier, int sample) {
+        return backlogs[cashier][slotOf(sample)];
+    }
+
+    /**
+     * writes the samples as comma separated values with a line per sample per cashier
+     * @param fileName
+     * @throws IOException
+     */
+    public void exportCSV(String fileName) throws IOException {
+        try (BufferedWriter out = new BufferedWriter(new FileWriter(fileName), 1 << 16)) {
+            out.write("time,cashier,queueLength,busy,backlogSeconds\n");
+            for (int s = 0; s < numberOfSamples; s++) {
+                String time = XMLWriter.formatTime(getSampleTime(s));
+                for (int c = 0; c < cashierNames.size(); c++) {
+                    out.write(time);
+                    out.write(',');
+                    out.write(cashierNames.get(c));
+                    out.write(',');
+                    out.write(Integer.toString(getQueueLength(c, s)));
+                    out.write(isBusy(c, s) ? ",1," : ",0,");
+                    out.write(Integer.toString(getBacklogSeconds(c, s)));
+                    out.write('\n');
+                }
+            }
+        }
+    }
+
+    /**
+     * writes the samples as a binary series in the layout described above
+     * @param fileName
+     * @throws IOException
+     */
+    public void exportBinary(String fileName) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(interval);
+            out.writeInt(cashierNames.size());
+            out.writeInt(numberOfSamples);
+            for (String name : cashierNames) {
+                out.writeUTF(name);
+            }
+            for (int s = 0; s < numberOfSamples; s++) {
+                out.writeInt(getSampleTime(s));
+            }
+            for (int c = 0; c < cashierNames.size(); c++) {
+                for (int s = 0; s < numberOfSamples; s++) {
+                    out.writeInt(getQueueLength(c, s));
+                }
+                for (int s = 0; s < numberOfSamples; s++) {
+                    out.writeByte(isBusy(c, s) ? 1 : 0);
+                }
+                for (int s = 0; s < numberOfSamples; s++) {
+                    out.writeInt(getBacklogSeconds(c, s));
+                }
+            }
+        }
+    }
+
+    // the slot of a sample, counting from the oldest available sample
+    private int slotOf(int sample) {
+        return (nextSlot - numberOfSamples + sample + capacity) % capacity;
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.Arrays;
+
+/**
+ * a complete binary tree over a range of positions, e.g. of cashiers, in which every node holds the position
+ * with the lowest value in its subtree, the lowest position in case of a tie
+ * changing the value of a position takes O(log positions), finding the lowest value takes O(1)
+ */
+class Tournament {
+    private static final int ABSENT = -1;
+
+    private final int[] values;         // value per position
+    private final boolean[] present;    // whether a position takes part
+    private final int[] winners;        // winning position per node, the leaves start at leafOffset
+    private final int leafOffset;
+
+    Tournament(int size) {
+        int leaves = 1;
+        while (leaves < size) leaves <<= 1;
+        this.leafOffset = leaves;
+        this.values = new int[size];
+        this.present = new boolean[size];
+        this.winners = new int[2 * leaves];
+        Arrays.fill(winners, ABSENT);
+    }
+
+    /**
+     * @return the position with the lowest value, or -1 if no position takes part
+     */
+    int getWinner() {
+        return winners[1];
+    }
+
+    int getValue(int position) {
+        return values[position];
+    }
+
+    void set(int position, int value) {
+        if (present[position] && values[position] == value) return;
+        values[position] = value;
+        present[position] = true;
+        replay(position);
+    }
+
+    void remove(int position) {
+        if (!present[position]) return;
+        present[position] = false;
+        replay(position);
+    }
+
+    // replays the matches from the leaf of the position up to the root
+    private void replay(int position) {
+        int node = leafOffset + position;
+        winners[node] = present[position] ? position : ABSENT;
+        for (node >>= 1; node >= 1; node >>= 1) {
+            winners[node] = winnerOf(winners[2 * node], winners[2 * node + 1]);
+        }
+    }
+
+    private int winnerOf(int left, int right) {
+        if (left == ABSENT) return right;
+        if (right == ABSENT) return left;
+        // the left position is lower, so it wins a tie
+        return values[right] < values[left] ? right : left;
+    }
+}
@@ -0,0 +1,102 @@
+import java.util.AbstractQueue;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.function.Supplier;
+
+/**
+ * waiting queue of a PriorityCashier, made of two first-in-first-out lanes.
+ * customers with at most maxPriorityItems items join the priority lane, all others the regular lane.
+ * the priority lane is served first, within each lane customers keep their order of arrival.
+ * adding and removing customers takes constant time.
+ */
+class TwoLaneQueue extends AbstractQueue<Customer> {
+
+    private final int maxPriorityItems;
+    private final Queue<Customer> priorityLane;
+    private final Queue<Customer> regularLane;
+
+    TwoLaneQueue(int maxPriorityItems) {
+        this(maxPriorityItems, ArrayDeque::new);
+    }
+
+    /**
+     * @param maxPriorityItems
+     * @param laneFactory   creates the queue of each lane, e.g. a lock-free queue
+     */
+    TwoLaneQueue(int maxPriorityItems, Supplier<Queue<Customer>> laneFactory) {
+        this.maxPriorityItems = maxPriorityItems;
+        this.priorityLane = laneFactory.get();
+        this.regularLane = laneFactory.get();
+    }
+
+    boolean hasPriority(Customer customer) {
+        return customer.getNumberOfItems() <= maxPriorityItems;
+    }
+
+    @Override
+    public boolean offer(Customer customer) {
+        return hasPriority(customer) ? priorityLane.offer(customer) : regularLane.offer(customer);
+    }
+
+    @Override
+    public Customer poll() {
+        Customer customer = priorityLane.poll();
+        return customer != null ? customer : regularLane.poll();
+    }
+
+    @Override
+    public Customer peek() {
+        Customer customer = priorityLane.peek();
+        return customer != null ? customer : regularLane.peek();
+    }
+
+    @Override
+    public int size() {
+        return priorityLane.size() + regularLane.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return priorityLane.isEmpty() && regularLane.isEmpty();
+    }
+
+    @Override
+    public void clear() {
+        priorityLane.clear();
+        regularLane.clear();
+    }
+
+    /**
+     * iterates the customers in the order in which they will be served
+     * @return
+     */
+    @Override
+    public Iterator<Customer> iterator() {
+        return new Iterator<>() {
+            private Iterator<Customer> lane = priorityLane.iterator();
+            private boolean inPriorityLane = true;
+
+            @Override
+            public boolean hasNext() {
+                if (!lane.hasNext() && inPriorityLane) {
+                    lane = regularLane.iterator();
+                    inPriorityLane = false;
+                }
+                return lane.hasNext();
+            }
+
+            @Override
+            public Customer next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return lane.next();
+            }
+
+            @Override
+            public void remove() {
+                lane.remove();
+            }
+        };
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Supermarket Customer check-out and Cashier simulation
+ * @author  hbo-ict@hva.nl
+ */
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * an array list that counts every change of its elements, including replacing an element in place,
+ * such that information that has been derived from the list can tell whether it is still up to date.
+ * all changes, also through iterators, sub lists and sorting, pass through the methods below that count them
+ * @param <E>
+ */
+class VersionedList<E> extends AbstractList<E> implements RandomAccess {
+    private final ArrayList<E> elements = new ArrayList<>();
+    private long version;           // number of changes of the list so far
+
+    /**
+     * @return a number that changes whenever an element is added, removed or replaced
+     */
+    long getVersion() {
+        return version;
+    }
+
+    @Override
+    public E get(int index) {
+        return elements.get(index);
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public E set(int index, E element) {
+        E previous = elements.set(index, element);
+        version++;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        elements.add(index, element);
+        modCount++;
+        version++;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> collection) {
+        modCount++;
+        version++;
+        return elements.addAll(collection);
+    }
+
+    @Override
+    public E remove(int index) {
+        E previous = elements.remove(index);
+        modCount++;
+        version++;
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        elements.clear();
+        modCount++;
+        version++;
+    }
+}
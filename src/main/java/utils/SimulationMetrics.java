@@ -0,0 +1,259 @@
+package utils;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * counters and timers of the simulation engine, to tell whether a run is slow because of its data or its engine
+ * metrics are only collected when the JVM runs with -Dsupermarket.metrics=true.
+ * the flag is a constant, so otherwise the JIT compiler removes all metric calls from the simulation.
+ * counters can be updated from any thread, such that scenarios and stores that run in parallel add up
+ */
+public final class SimulationMetrics implements SimulationMetricsMBean {
+    // add VMoption -Dsupermarket.metrics=true to JVM
+    public static final boolean ENABLED = Boolean.getBoolean("supermarket.metrics");
+
+    public enum Counter { EVENTS_PROCESSED, CUSTOMER_ARRIVALS, CASHIER_SELECTIONS, QUEUE_OPERATIONS, IMPORT_BYTES, EXPORT_BYTES }
+
+    public enum Timer { IMPORT, EXPORT, SCHEDULING, CASHIER_SELECTION, CASHIER_WORK, SIMULATION }
+
+    private static final SimulationMetrics INSTANCE = new SimulationMetrics();
+    private static final String OBJECT_NAME = "supermarket:type=SimulationMetrics";
+
+    private final LongAdder[] counts = newAdders(Counter.values().length);
+    private final LongAdder[] nanos = newAdders(Timer.values().length);
+
+    private SimulationMetrics() {
+    }
+
+    public static SimulationMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    public static void increment(Counter counter) {
+        if (ENABLED) INSTANCE.counts[counter.ordinal()].increment();
+    }
+
+    public static void add(Counter counter, long amount) {
+        if (ENABLED) INSTANCE.counts[counter.ordinal()].add(amount);
+    }
+
+    /**
+     * @return the start time of a timed section, to be passed to stopTimer
+     */
+    public static long startTimer() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    public static void stopTimer(Timer timer, long startTime) {
+        if (ENABLED) INSTANCE.nanos[timer.ordinal()].add(System.nanoTime() - startTime);
+    }
+
+    /**
+     * counts the bytes that are read from an input stream as imported bytes
+     * @param input
+     * @return the counting stream, or the given stream itself if metrics are disabled
+     */
+    public static InputStream countImport(InputStream input) {
+        if (!ENABLED || input == null) return input;
+        return new FilterInputStream(input) {
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) add(Counter.IMPORT_BYTES, 1);
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int n = super.read(buffer, offset, length);
+                if (n > 0) add(Counter.IMPORT_BYTES, n);
+                return n;
+            }
+        };
+    }
+
+    /**
+     * counts the bytes that are written to an output stream as exported bytes
+     * @param output
+     * @return the counting stream, or the given stream itself if metrics are disabled
+     */
+    public static OutputStream countExport(OutputStream output) {
+        if (!ENABLED || output == null) return output;
+        return new FilterOutputStream(output) {
+            @Override
+            public void write(int b) throws IOException {
+                out.write(b);
+                add(Counter.EXPORT_BYTES, 1);
+            }
+
+            @Override
+            public void write(byte[] buffer, int offset, int length) throws IOException {
+                out.write(buffer, offset, length);
+                add(Counter.EXPORT_BYTES, length);
+            }
+        };
+    }
+
+    /**
+     * makes the metrics available to JMX clients such as jconsole, if metrics are enabled
+     */
+    public static void registerMBean() {
+        if (!ENABLED) return;
+        try {
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, name);
+            }
+        } catch (JMException ex) {
+            SLF4J.logException("Cannot register " + OBJECT_NAME, ex);
+        }
+    }
+
+    public long getCount(Counter counter) {
+        return counts[counter.ordinal()].sum();
+    }
+
+    public double getMillis(Timer timer) {
+        return nanos[timer.ordinal()].sum() / 1e6;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return ENABLED;
+    }
+
+    @Override
+    public long getEventsProcessed() {
+        return getCount(Counter.EVENTS_PROCESSED);
+    }
+
+    @Override
+    public long getCustomerArrivals() {
+        return getCount(Counter.CUSTOMER_ARRIVALS);
+    }
+
+    @Override
+    public long getCashierSelections() {
+        return getCount(Counter.CASHIER_SELECTIONS);
+    }
+
+    @Override
+    public long getQueueOperations() {
+        return getCount(Counter.QUEUE_OPERATIONS);
+    }
+
+    @Override
+    public long getImportBytes() {
+        return getCount(Counter.IMPORT_BYTES);
+    }
+
+    @Override
+    public long getExportBytes() {
+        return getCount(Counter.EXPORT_BYTES);
+    }
+
+    @Override
+    public double getImportMillis() {
+        return getMillis(Timer.IMPORT);
+    }
+
+    @Override
+    public double getExportMillis() {
+        return getMillis(Timer.EXPORT);
+    }
+
+    @Override
+    public double getSchedulingMillis() {
+        return getMillis(Timer.SCHEDULING);
+    }
+
+    @Override
+    public double getCashierSelectionMillis() {
+        return getMillis(Timer.CASHIER_SELECTION);
+    }
+
+    @Override
+    public double getCashierWorkMillis() {
+        return getMillis(Timer.CASHIER_WORK);
+    }
+
+    @Override
+    public double getSimulationMillis() {
+        return getMillis(Timer.SIMULATION);
+    }
+
+    @Override
+    public double getEventsPerSecond() {
+        return perSecond(getEventsProcessed(), getSimulationMillis());
+    }
+
+    @Override
+    public double getImportBytesPerSecond() {
+        return perSecond(getImportBytes(), getImportMillis());
+    }
+
+    @Override
+    public double getExportBytesPerSecond() {
+        return perSecond(getExportBytes(), getExportMillis());
+    }
+
+    /**
+     * @return all metrics as a single line of JSON
+     */
+    @Override
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder("{\"enabled\":").append(ENABLED);
+        for (Counter counter : Counter.values()) {
+            sb.append(",\"").append(camelCase(counter.name())).append("\":").append(getCount(counter));
+        }
+        for (Timer timer : Timer.values()) {
+            sb.append(",\"").append(camelCase(timer.name())).append("Millis\":")
+                    .append(String.format(Locale.US, "%.3f", getMillis(timer)));
+        }
+        sb.append(String.format(Locale.US,
+                ",\"eventsPerSecond\":%.1f,\"importBytesPerSecond\":%.1f,\"exportBytesPerSecond\":%.1f}",
+                getEventsPerSecond(), getImportBytesPerSecond(), getExportBytesPerSecond()));
+        return sb.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder adder : counts) adder.reset();
+        for (LongAdder adder : nanos) adder.reset();
+    }
+
+    private static double perSecond(long amount, double millis) {
+        return millis > 0 ? amount * 1000.0 / millis : 0.0;
+    }
+
+    private static String camelCase(String constantName) {
+        StringBuilder sb = new StringBuilder();
+        boolean upper = false;
+        for (char c : constantName.toCharArray()) {
+            if (c == '_') {
+                upper = true;
+            } else {
+                sb.append(upper ? c : Character.toLowerCase(c));
+                upper = false;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static LongAdder[] newAdders(int n) {
+        LongAdder[] adders = new LongAdder[n];
+        for (int i = 0; i < n; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
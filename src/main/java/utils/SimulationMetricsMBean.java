@@ -0,0 +1,42 @@
+package utils;
+
+/**
+ * management interface of the simulation metrics, as exposed through JMX
+ */
+public interface SimulationMetricsMBean {
+    boolean isEnabled();
+
+    long getEventsProcessed();
+
+    long getCustomerArrivals();
+
+    long getCashierSelections();
+
+    long getQueueOperations();
+
+    long getImportBytes();
+
+    long getExportBytes();
+
+    double getImportMillis();
+
+    double getExportMillis();
+
+    double getSchedulingMillis();
+
+    double getCashierSelectionMillis();
+
+    double getCashierWorkMillis();
+
+    double getSimulationMillis();
+
+    double getEventsPerSecond();
+
+    double getImportBytesPerSecond();
+
+    double getExportBytesPerSecond();
+
+    String getSummary();
+
+    void reset();
+}
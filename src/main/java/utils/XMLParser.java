@@ -4,18 +4,34 @@ import javax.xml.stream.XMLInputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
 import javax.xml.stream.util.StreamReaderDelegate;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
 
 public class XMLParser extends StreamReaderDelegate {
     private String sourceName = "";
 
     public XMLParser(String resourceName) {
-        this(XMLParser.class.getClassLoader().getResourceAsStream(resourceName));
+        this(resourceStreamOrNull(resourceName));
         this.sourceName = resourceName;
     }
 
+    // resources with a name that ends with .gz are decompressed with gzip
+    private static InputStream resourceStreamOrNull(String resourceName) {
+        InputStream input = XMLParser.class.getClassLoader().getResourceAsStream(resourceName);
+        if (input != null && resourceName.endsWith(".gz")) {
+            try {
+                return new GZIPInputStream(input, 1 << 16);
+            } catch (IOException ex) {
+                SLF4J.logException("Cannot decompress resource " + resourceName, ex);
+                return null;
+            }
+        }
+        return input;
+    }
+
     public XMLParser(InputStream inputStream) {
-        super(createXMLStreamReader(inputStream));
+        super(createXMLStreamReader(SimulationMetrics.countImport(inputStream)));
     }
 
     public static XMLStreamReader createXMLStreamReader(InputStream input) {
@@ -3,30 +3,77 @@ package utils;
 import javax.xml.stream.*;
 
 import javanet.staxutils.IndentingXMLStreamWriter;
+import javanet.staxutils.helpers.StreamWriterDelegate;
 
-import java.io.FileNotFoundException;
+import java.io.BufferedOutputStream;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * writes xml to a buffered output stream, indented for readability or compact for throughput
+ * files with a name that ends with .gz are compressed with gzip
+ */
+public class XMLWriter extends StreamWriterDelegate {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+    private static final String[] TIMES = new String[SECONDS_PER_DAY];  // formatted times, filled on demand
+    private static final String[] INTEGERS = new String[1024];          // formatted small integers
+    private static final int PRICE_CACHE_SIZE = 256;
+    private static final double HALF_CENT_MARGIN = 1e-6;    // distance in cents from a half cent that rounds alike
+
+    static {
+        for (int i = 0; i < INTEGERS.length; i++) {
+            INTEGERS[i] = Integer.toString(i);
+        }
+    }
 
-public class XMLWriter extends IndentingXMLStreamWriter {
     private String sourceName = "";
+    private final OutputStream outputStream;
+    private final boolean indenting;
+    private final char[] priceDigits = new char[24];                    // buffer to format a price in
+    private final long[] priceCents = new long[PRICE_CACHE_SIZE];       // price in cents of every cached price
+    private final String[] prices = new String[PRICE_CACHE_SIZE];       // recently formatted prices, by their cents
 
     public XMLWriter(String resourceName) {
-        this(FileOutputStreamOrNull(resourceName));
+        this(resourceName, true);
+    }
+
+    public XMLWriter(String resourceName, boolean indenting) {
+        this(fileOutputStreamOrNull(resourceName), indenting);
         this.sourceName = resourceName;
     }
 
-    private static OutputStream FileOutputStreamOrNull(String resourceName) {
+    private static OutputStream fileOutputStreamOrNull(String resourceName) {
         try {
-            return new FileOutputStream(resourceName);
-        } catch (FileNotFoundException ex) {
+            OutputStream output = new FileOutputStream(resourceName);
+            if (resourceName.endsWith(".gz")) {
+                output = new GZIPOutputStream(output, BUFFER_SIZE);
+            }
+            return new BufferedOutputStream(output, BUFFER_SIZE);
+        } catch (IOException ex) {
             SLF4J.logException("Cannot create file " + resourceName, ex);
             return null;
         }
     }
 
     public XMLWriter(OutputStream outputStream) {
-        super(createXMLStreamWriter(outputStream));
+        this(outputStream, true);
+    }
+
+    public XMLWriter(OutputStream outputStream, boolean indenting) {
+        this(SimulationMetrics.countExport(outputStream), outputStream, indenting);
+    }
+
+    private XMLWriter(OutputStream countedStream, OutputStream outputStream, boolean indenting) {
+        super(indenting ? new IndentingXMLStreamWriter(createXMLStreamWriter(countedStream))
+                : createXMLStreamWriter(countedStream));
+        this.outputStream = outputStream;
+        this.indenting = indenting;
     }
 
     public static XMLStreamWriter createXMLStreamWriter(OutputStream output) {
@@ -39,4 +86,141 @@ public class XMLWriter extends IndentingXMLStreamWriter {
         }
         return xmlStreamWriter;
     }
+
+    public boolean isIndenting() {
+        return indenting;
+    }
+
+    /**
+     * closes the xml stream together with the underlying output stream,
+     * which completes a gzip file
+     * @throws XMLStreamException
+     */
+    @Override
+    public void close() throws XMLStreamException {
+        try {
+            super.close();
+        } finally {
+            // the stream is closed also when the xml writer fails
+            if (outputStream != null) {
+                try {
+                    outputStream.close();
+                } catch (IOException ex) {
+                    throw new XMLStreamException("Cannot close " + sourceName, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * formats a time of the day as HH:mm:ss
+     * every time is formatted only once, later calls share the same string
+     * @param secondOfDay
+     * @return
+     */
+    public static String formatTime(int secondOfDay) {
+        secondOfDay = Math.floorMod(secondOfDay, SECONDS_PER_DAY);
+        String time = TIMES[secondOfDay];
+        if (time == null) {
+            int hours = secondOfDay / 3600;
+            int minutes = secondOfDay / 60 % 60;
+            int seconds = secondOfDay % 60;
+            time = new String(new char[]{
+                    (char) ('0' + hours / 10), (char) ('0' + hours % 10), ':',
+                    (char) ('0' + minutes / 10), (char) ('0' + minutes % 10), ':',
+                    (char) ('0' + seconds / 10), (char) ('0' + seconds % 10)});
+            TIMES[secondOfDay] = time;
+        }
+        return time;
+    }
+
+    /**
+     * formats a non-negative integer, sharing the strings of small numbers
+     * @param value
+     * @return
+     */
+    public static String formatInteger(int value) {
+        return value >= 0 && value < INTEGERS.length ? INTEGERS[value] : Integer.toString(value);
+    }
+
+    /**
+     * formats a price with two decimals and a decimal point, rounded half up to whole cents
+     * @param price
+     * @return
+     */
+    public static String formatPrice(double price) {
+        if (!Double.isFinite(price)) {
+            return String.format(Locale.US, "%.2f", price);
+        }
+        char[] digits = new char[24];
+        int pos = formatCents(toCents(price), digits);
+        return new String(digits, pos, digits.length - pos);
+    }
+
+    /**
+     * writes a price attribute with two decimals and a decimal point, rounded half up to whole cents
+     * the digits are formatted in the buffer of this writer; attribute values are strings,
+     * so the string of a price is kept and shared with later prices of the same amount of cents
+     * @param localName
+     * @param price
+     * @throws XMLStreamException
+     */
+    public void writePriceAttribute(String localName, double price) throws XMLStreamException {
+        if (!Double.isFinite(price)) {
+            writeAttribute(localName, formatPrice(price));
+            return;
+        }
+        long cents = toCents(price);
+        int slot = (int) (cents & (PRICE_CACHE_SIZE - 1));
+        if (prices[slot] == null || priceCents[slot] != cents) {
+            int pos = formatCents(cents, priceDigits);
+            prices[slot] = new String(priceDigits, pos, priceDigits.length - pos);
+            priceCents[slot] = cents;
+        }
+        writeAttribute(localName, prices[slot]);
+    }
+
+    /**
+     * rounds a price half up to whole cents, like String.format(Locale.US, "%.2f", price) does,
+     * which rounds the shortest decimal representation of the price rather than its binary value.
+     * Math.round only differs from that near a half cent, where 1.005 * 100 = 100.49999999999999,
+     * so only those prices are rounded by BigDecimal.
+     * negative prices, including those that round to -0.00, are encoded as the complement -cents - 1
+     * @param price a finite price
+     * @return the (encoded) amount of cents
+     */
+    private static long toCents(double price) {
+        double abs = Math.abs(price) * 100;
+        long cents;
+        if (Math.abs(abs - Math.floor(abs) - 0.5) > HALF_CENT_MARGIN) {
+            cents = Math.round(abs);
+        } else {
+            cents = BigDecimal.valueOf(Math.abs(price)).setScale(2, RoundingMode.HALF_UP)
+                    .unscaledValue().longValue();
+        }
+        return (Double.doubleToRawLongBits(price) < 0) ? ~cents : cents;
+    }
+
+    /**
+     * formats an amount of cents at the end of a buffer
+     * @param cents an amount of cents as encoded by toCents
+     * @param digits
+     * @return the position of the first character in the buffer
+     */
+    private static int formatCents(long cents, char[] digits) {
+        long abs = (cents < 0) ? ~cents : cents;
+        int pos = digits.length;
+        digits[--pos] = (char) ('0' + abs % 10);
+        digits[--pos] = (char) ('0' + abs / 10 % 10);
+        digits[--pos] = '.';
+        long whole = abs / 100;
+        do {
+            digits[--pos] = (char) ('0' + whole % 10);
+            whole /= 10;
+        } while (whole > 0);
+        if (cents < 0) {
+            digits[--pos] = '-';
+        }
+        return pos;
+    }
 }
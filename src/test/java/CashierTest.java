@@ -8,6 +8,7 @@ import static org.hamcrest.Matchers.*;
 
 import java.lang.reflect.InvocationTargetException;
 import java.time.LocalTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -109,6 +110,65 @@ class CashierTest {
         assertThat(cashier.getMaxQueueLength(), is(finalQueueSize+1));
     }
 
+    @Test
+    void t056_queuedCheckOutTimeFollowsTheQueue() {
+        t056_queuedCheckOutTimeFollowsTheQueue(this.fifoCashier, Integer.MAX_VALUE);
+        t056_queuedCheckOutTimeFollowsTheQueue(this.priorityCashier, 5);
+    }
+
+    private void t056_queuedCheckOutTimeFollowsTheQueue(Cashier cashier, int maxPriorityItems) {
+        if (cashier == null) return;
+        cashier.reStart(LocalTime.NOON);
+        cashier.add(this.customer9);
+        cashier.add(this.customer0);
+        cashier.add(this.customer2);
+        cashier.add(this.customer1);
+        cashier.add(this.customer9);
+        for (int seconds = 0; seconds <= 200; seconds += 25) {
+            // the running workload equals the check-out times of the customers that would go first
+            cashier.doTheWorkUntil(LocalTime.NOON.plusSeconds(seconds));
+            assertThat(cashier.getQueuedCheckOutTime(9), is(queuedCheckOutTime(cashier, 9, maxPriorityItems)));
+            assertThat(cashier.getQueuedCheckOutTime(1), is(queuedCheckOutTime(cashier, 1, maxPriorityItems)));
+        }
+        assertThat(cashier.getQueuedCheckOutTime(9), is(0));
+        cashier.add(this.customer2);
+        cashier.reStart(LocalTime.NOON);
+        assertThat(cashier.getQueuedCheckOutTime(9), is(0));
+        assertThat(cashier.getQueuedCheckOutTime(1), is(0));
+    }
+
+    private static int queuedCheckOutTime(Cashier cashier, int numberOfItems, int maxPriorityItems) {
+        int sum = 0;
+        for (Customer customer : cashier.getWaitingQueue()) {
+            if (numberOfItems > maxPriorityItems || customer.getNumberOfItems() <= maxPriorityItems) {
+                sum += customer.getActualCheckOutTime();
+            }
+        }
+        return sum;
+    }
+
+    @Test
+    void t055_longBacklogIsServedWithoutDeepRecursion() {
+        if (this.fifoCashier == null) return;
+        final int nCustomers = 100_000;
+        this.fifoCashier.reStart(LocalTime.NOON);
+        Customer last = null;
+        for (int c = 0; c < nCustomers; c++) {
+            last = new Customer(LocalTime.NOON, "1000AA");
+            last.getItems().add(new Purchase(this.prod1, 1));
+            this.fifoCashier.add(last);
+        }
+        assertThat(this.fifoCashier.getQueueLength(), is(nCustomers));
+
+        // all customers are served in a single call, which would overflow the stack if it recursed per customer
+        final int noon = LocalTime.NOON.toSecondOfDay();
+        this.fifoCashier.doTheWorkUntil(noon + nCustomers * 22 + 10);
+        assertThat(this.fifoCashier.getQueueLength(), is(0));
+        assertThat(this.fifoCashier.getWaitingTimes().getTotalCount(), is((long) nCustomers));
+        assertThat(last.getActualWaitingTime(), is((nCustomers - 1) * 22));
+        assertThat(this.fifoCashier.getTotalIdleTime(), is(10));
+    }
+
     @Test
     void t051_fifoCashierConcreteClassHasBeenDefined() {
         assertTrue(this.fifoCashier instanceof Cashier, "FIFOCashier is not a Cashier");
@@ -118,4 +178,46 @@ class CashierTest {
     void t101_priorityCashierConcreteClassHasBeenDefined() {
         assertTrue(this.priorityCashier instanceof Cashier, "PriotityCashier is not a Cashier");
     }
-}
\ No newline at end of file
+
+    @Test
+    void t102_priorityCashierKeepsArrivalOrderWithinLanes() {
+        if (this.priorityCashier == null) return;
+        Customer customer1b = new Customer(LocalTime.NOON, "1000AD");
+        customer1b.getItems().add(new Purchase(this.prod3, 1));
+        Customer customer9b = new Customer(LocalTime.NOON, "1000AE");
+        customer9b.getItems().add(new Purchase(this.prod3, 9));
+        this.priorityCashier.reStart(LocalTime.NOON);
+        this.priorityCashier.add(this.customer9);
+        this.priorityCashier.add(this.customer1);
+        this.priorityCashier.add(customer9b);
+        this.priorityCashier.add(this.customer2);
+        this.priorityCashier.add(customer1b);
+        assertThat(List.copyOf(this.priorityCashier.getWaitingQueue()),
+                contains(this.customer1, this.customer2, customer1b, this.customer9, customer9b));
+        assertThat(this.priorityCashier.expectedWaitingTime(this.customer1), is(3*20 + 4*2));
+        assertThat(this.priorityCashier.expectedWaitingTime(this.customer9), is(5*20 + 22*2));
+    }
+
+    @Test
+    void t103_cashierRecordsHistogramsOfItsCustomers() {
+        if (this.fifoCashier == null) return;
+        this.fifoCashier.reStart(LocalTime.NOON);
+        this.fifoCashier.add(this.customer1);
+        this.fifoCashier.add(this.customer2);
+        this.fifoCashier.add(this.customer9);
+        this.fifoCashier.doTheWorkUntil(LocalTime.NOON.plusSeconds(200));
+        Histogram waitingTimes = this.fifoCashier.getWaitingTimes();
+        assertThat(waitingTimes.getTotalCount(), is(3L));
+        assertThat(waitingTimes.getValueAtPercentile(50), is(22));
+        assertThat(waitingTimes.getValueAtPercentile(99.9), is(22 + 24));
+        assertThat(this.fifoCashier.getCheckOutTimes().getMean(), is(closeTo((22 + 24 + 38) / 3.0, 0.0001)));
+        assertThat(this.fifoCashier.getQueueLengths().getMax(), is(3));
+
+        Histogram merged = new Histogram().merge(waitingTimes);
+        merged.record(10000);
+        assertThat(merged.getValueAtPercentile(75), is(22 + 24));
+        assertThat(merged.getValueAtPercentile(100), is(10000));
+        this.fifoCashier.reStart(LocalTime.NOON);
+        assertThat(waitingTimes.getTotalCount(), is(0L));
+    }
+}
@@ -52,4 +52,18 @@ class CustomerTest {
         assertThat(4.0, is(this.customer2.calculateTotalBill()));
         assertThat(14.0, is(this.customer9.calculateTotalBill()));
     }
+
+    @Test
+    void t014_itemsAndBillFollowChangesToPurchases() {
+        Purchase purchase = new Purchase(this.prod3, 2);
+        this.customer9.getItems().add(purchase);
+        assertEquals(11, this.customer9.getNumberOfItems());
+        assertThat(this.customer9.calculateTotalBill(), is(closeTo(20.0, 0.0001)));
+        this.customer9.getItems().remove(purchase);
+        assertEquals(9, this.customer9.getNumberOfItems());
+        assertThat(this.customer9.calculateTotalBill(), is(closeTo(14.0, 0.0001)));
+        this.customer9.getItems().clear();
+        assertEquals(0, this.customer9.getNumberOfItems());
+        assertEquals(0.0, this.customer9.calculateTotalBill());
+    }
 }
\ No newline at end of file
@@ -4,7 +4,13 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestMethodOrder;
 
 
+import utils.XMLWriter;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalTime;
+import java.util.Locale;
 
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.*;
@@ -47,4 +53,50 @@ class ProductTest {
         assertEquals(5, supermarket.getProducts().size(),
                 "A duplicate product code should not have been added to the set");
     }
-}
\ No newline at end of file
+
+    @Test
+    void t004_productsCanBeFoundByCode() {
+        ProductCatalogue catalogue = new ProductCatalogue();
+        Product p1 = new Product("ABC", "XXX", 1.0);
+        assertTrue(catalogue.add(p1));
+        assertFalse(catalogue.add(new Product("ABC", "YYY", 2.0)),
+                "A duplicate product code should not replace the product in the catalogue");
+        assertSame(p1, catalogue.getByCode("ABC"));
+        assertNull(catalogue.getByCode("DEF"));
+        assertEquals(1, catalogue.size());
+    }
+
+    @Test
+    void t005_pricesAreRoundedLikeStringFormat() throws XMLStreamException {
+        double[] edgePrices = { 1.005, 0.285, -1.005, 2.675, 0.005, -0.005, 123456.785, 0.0, -0.0, -0.001, 9.995 };
+        for (double price : edgePrices) {
+            assertEquals(String.format(Locale.US, "%.2f", price), XMLWriter.formatPrice(price),
+                    "Price " + price + " is not rounded like String.format");
+        }
+        for (int mills = -20000; mills <= 20000; mills++) {
+            double price = mills / 1000.0;
+            assertEquals(String.format(Locale.US, "%.2f", price), XMLWriter.formatPrice(price),
+                    "Price " + price + " is not rounded like String.format");
+        }
+
+        // the price cache of the writer should not mix up prices of the same amount of cents
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        XMLWriter xmlWriter = new XMLWriter(output, false);
+        xmlWriter.writeStartDocument();
+        xmlWriter.writeStartElement("products");
+        for (double price : edgePrices) {
+            new Product("A001", "Any-1", price).exportToXML(xmlWriter);
+        }
+        xmlWriter.writeEndElement();
+        xmlWriter.writeEndDocument();
+        xmlWriter.close();
+        String xml = output.toString(StandardCharsets.UTF_8);
+        int from = 0;
+        for (double price : edgePrices) {
+            String attribute = "price=\"" + String.format(Locale.US, "%.2f", price) + "\"";
+            from = xml.indexOf(attribute, from);
+            assertTrue(from >= 0, "Price " + price + " has not been written as " + attribute);
+            from += attribute.length();
+        }
+    }
+}
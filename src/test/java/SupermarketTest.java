@@ -1,3 +1,4 @@
+import utils.SimulationMetrics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Test;
@@ -5,8 +6,23 @@ import org.junit.jupiter.api.TestMethodOrder;
 import static org.hamcrest.MatcherAssert.*;
 import static org.hamcrest.Matchers.*;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -81,6 +97,118 @@ class SupermarketTest {
         assertNull(supermarket5.mostBoughtProductByZipCode().get("1016DK"));
     }
 
+    @Test
+    void t043_customerStatisticsCanBeMerged() {
+        List<Customer> customers = supermarket5.getCustomers();
+        CustomerStatistics first = CustomerStatistics.of(customers.subList(0, 3));
+        CustomerStatistics second = CustomerStatistics.of(customers.subList(3, customers.size()));
+        first.merge(second);
+        assertEquals(6, first.getNumberOfCustomers());
+        assertEquals(25, first.getTotalNumberOfItems());
+        assertEquals(supermarket5.revenueByZipCode().keySet(), first.getRevenueByZipCode().keySet());
+        assertThat(first.getRevenueByZipCode().get("1014DA"), is(closeTo(56.79, 0.0001)));
+        assertEquals(supermarket5.mostBoughtProductByZipCode(), first.getMostBoughtProductByZipCode());
+    }
+
+    @Test
+    void t044_binaryDatasetRestoresTheConfiguration() throws IOException {
+        File file = File.createTempFile("jambi5", ".bin");
+        try {
+            supermarket5.exportBinary(file.getPath());
+            Supermarket restored = Supermarket.importFromBinary(file.getPath());
+            assertNotNull(restored);
+            assertEquals(supermarket5.getOpenTime(), restored.getOpenTime());
+            assertEquals(supermarket5.getClosingTime(), restored.getClosingTime());
+            t041_customersAndProductsAreLoadedFromXML(restored, 5, 6, 25);
+            assertEquals(supermarket5.revenueByZipCode().keySet(), restored.revenueByZipCode().keySet());
+            assertThat(restored.revenueByZipCode().get("1014DA"), is(closeTo(56.79, 0.0001)));
+            assertEquals(supermarket5.mostBoughtProductByZipCode(), restored.mostBoughtProductByZipCode());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void t045_customerStoreHoldsCustomersInColumns() {
+        CustomerStore store = CustomerStore.of(supermarket5);
+        assertEquals(6, store.size());
+        CustomerStatistics statistics = CustomerStatistics.of(store);
+        assertEquals(25, statistics.getTotalNumberOfItems());
+        assertThat(statistics.getRevenueByZipCode().get("1015DK"), is(closeTo(38.10, 0.0001)));
+        assertEquals(supermarket5.mostBoughtProductByZipCode(), statistics.getMostBoughtProductByZipCode());
+        Customer view = store.getCustomer(0);
+        Customer original = supermarket5.getCustomers().get(0);
+        assertEquals(original.getQueuedAt(), view.getQueuedAt());
+        assertEquals(original.getNumberOfItems(), view.getNumberOfItems());
+        assertThat(view.calculateTotalBill(), is(closeTo(original.calculateTotalBill(), 0.0001)));
+    }
+
+    @Test
+    void t047_compactGzipExportRestoresTheConfiguration() throws IOException {
+        File file = File.createTempFile("jambi5", ".xml.gz");
+        try {
+            supermarket5.exportXML(file.getPath(), supermarket5.getCustomers().iterator(), false);
+            Supermarket restored;
+            try (InputStream input = new GZIPInputStream(new FileInputStream(file))) {
+                restored = Supermarket.importFromXML(file.getPath(), input);
+            }
+            assertNotNull(restored);
+            assertEquals(supermarket5.getOpenTime(), restored.getOpenTime());
+            t041_customersAndProductsAreLoadedFromXML(restored, 5, 6, 25);
+            assertEquals(supermarket5.getCustomers().get(5).getQueuedAt(), restored.getCustomers().get(5).getQueuedAt());
+            assertThat(restored.revenueByZipCode().get("1014DA"), is(closeTo(56.79, 0.0001)));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void t048_customerStoreOfAnEmptyDatasetCanGrow() throws IOException {
+        Supermarket empty = new Supermarket("EMPTY", supermarket5.getOpenTime(), supermarket5.getClosingTime());
+        empty.getProducts().addAll(supermarket5.getProducts());
+        File file = File.createTempFile("empty", ".bin");
+        try {
+            empty.exportBinary(file.getPath());
+            CustomerStore store = CustomerStore.of(BinaryDataset.open(file.getPath()));
+            assertEquals(0, store.size());
+            for (Customer customer : supermarket5.getCustomers()) {
+                store.add(customer);
+            }
+            assertEquals(6, store.size());
+            assertEquals(25, CustomerStatistics.of(store).getTotalNumberOfItems());
+            assertEquals(supermarket5.getCustomers().get(5).getQueuedAt(), store.getCustomer(5).getQueuedAt());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void t065_storeSimulationMatchesLoadedSimulation() {
+        if (this.fifoCashier1 == null) return;
+        CustomerStore store = CustomerStore.of(supermarket5);
+        supermarket5.getCashiers().add(this.fifoCashier1);
+        supermarket5.simulateCashiers(store);
+        assertEquals(150, this.fifoCashier1.getTotalIdleTime());
+        assertEquals(4, this.fifoCashier1.getMaxQueueLength());
+    }
+
+    @Test
+    void t046_randomCustomersAreReproducibleWithASeed() {
+        supermarket1.addRandomCustomers(10000, 8, 42L);
+        supermarket2.addRandomCustomers(10000, 8, 42L);
+        List<Customer> customers1 = supermarket1.getCustomers();
+        List<Customer> customers2 = supermarket2.getCustomers();
+        assertEquals(10001, customers1.size());
+        assertEquals(10002, customers2.size());
+        for (int i = 1; i <= 10000; i++) {
+            Customer c1 = customers1.get(i);
+            Customer c2 = customers2.get(i + 1);
+            assertEquals(c1.getQueuedAt(), c2.getQueuedAt());
+            assertEquals(c1.getZipCode(), c2.getZipCode());
+            assertEquals(c1.getItems().toString(), c2.getItems().toString());
+        }
+    }
+
     @Test
     void t061_oneFIFOCashierSimulation() {
         t060_oneCashierSimulation(this.supermarket1, this.fifoCashier1, 260, 1);
@@ -109,6 +237,543 @@ class SupermarketTest {
         t060_twoCashierSimulation(this.supermarket5, this.fifoCashier1, this.priorityCashier, 450, 202, 248, 2, 2);
     }
 
+    @Test
+    void t063_streamingSimulationMatchesLoadedSimulation() {
+        if (this.fifoCashier1 == null || this.fifoCashier2 == null) return;
+        Supermarket streamed = Supermarket.simulateFromXML("jambi5.xml", List.of(this.fifoCashier1, this.fifoCashier2), 10);
+        assertNotNull(streamed);
+        assertEquals(0, streamed.getCustomers().size());
+        assertThat(this.fifoCashier1.getTotalIdleTime() + this.fifoCashier2.getTotalIdleTime(), is(450));
+        assertThat(this.fifoCashier1.getAmountOfServedCustomers() + this.fifoCashier2.getAmountOfServedCustomers(), is(5));
+    }
+
+    @Test
+    void t064_scenariosRunOnIsolatedCopies() {
+        ScenarioRunner runner = new ScenarioRunner(this.supermarket5)
+                .addScenario("FIFO", () -> List.of(new FIFOCashier("FIFO-1")))
+                .addScenario("2FIFO", () -> List.of(new FIFOCashier("FIFO-1"), new FIFOCashier("FIFO-2")));
+        List<ScenarioResult> results = runner.runAll();
+        assertThat(results.get(0).getName(), is("FIFO"));
+        assertThat(results.get(0).getTotalIdleTime(), is(150));
+        assertThat(results.get(0).getMaxQueueLength(), is(4));
+        assertThat(results.get(1).getTotalIdleTime(), is(450));
+        assertThat(results.get(1).getNumberOfCustomers(), is(5));
+        for (Customer customer : this.supermarket5.getCustomers()) {
+            assertEquals(0, customer.getActualCheckOutTime(), "A scenario should not change the loaded customers");
+        }
+    }
+
+    @Test
+    void t066_chainMergesTheResultsOfItsStores() {
+        ChainResult chain = new ChainSimulator(() -> List.of(new FIFOCashier("FIFO-1")))
+                .addStore("jambi1.xml")
+                .addStore("jambi2.xml")
+                .addStore("jambi5.xml")
+                .addStore("jambi5.xml", ChainSimulator.datasetLoader("jambi5.xml"),
+                        () -> List.of(new FIFOCashier("FIFO-1"), new FIFOCashier("FIFO-2")))
+                .runAll();
+        assertThat(chain.getStoreResults().size(), is(4));
+        assertThat(chain.getStoreResults().get(2).getName(), is("jambi5.xml"));
+        assertThat(chain.getStoreResults().get(2).getTotalIdleTime(), is(150));
+        // a store with its own configuration is simulated with its own cashiers
+        assertThat(chain.getStoreResults().get(2).getCashiers().size(), is(1));
+        assertThat(chain.getStoreResults().get(3).getCashiers().size(), is(2));
+        assertThat(chain.getStoreResults().get(3).getTotalIdleTime(), is(greaterThan(150)));
+        int customers = 0;
+        double maxWaitingTime = 0;
+        for (ScenarioResult store : chain.getStoreResults()) {
+            customers += store.getNumberOfCustomers();
+            maxWaitingTime = Math.max(maxWaitingTime, store.getMaxWaitingTime());
+        }
+        assertEquals(customers, chain.getNumberOfCustomers());
+        assertEquals((int) maxWaitingTime, chain.getMaxWaitingTime());
+        assertThat(chain.getWaitingTimePercentile(50), is(lessThanOrEqualTo(chain.getWaitingTimePercentile(95))));
+        assertThat(chain.getWaitingTimePercentile(100), is(chain.getMaxWaitingTime()));
+    }
+
+    @Test
+    void t067_concurrentArrivalsAreAllServed() throws InterruptedException {
+        supermarket1.addRandomCustomers(3000, 4, 7L);
+        List<Customer> customers = supermarket1.getCustomers();
+        List<Cashier> cashiers = List.of(new FIFOCashier("FIFO-1"), new FIFOCashier("FIFO-2"),
+                new PriorityCashier("PRIO", 5));
+        RealTimeCheckout checkout = new RealTimeCheckout(cashiers, supermarket1.getOpenTime());
+        // a negative waiting time marks the customers that have not been served
+        customers.forEach(customer -> customer.setActualWaitingTime(-1));
+
+        // the entrances publish the customers interleaved, so not in order of arrival
+        Cashier[] selected = new Cashier[customers.size()];
+        Thread[] entrances = new Thread[4];
+        for (int e = 0; e < entrances.length; e++) {
+            final int entrance = e;
+            entrances[e] = new Thread(() -> {
+                for (int i = entrance; i < customers.size(); i += entrances.length) {
+                    selected[i] = checkout.publish(customers.get(i));
+                }
+            });
+            entrances[e].start();
+        }
+        for (Thread entrance : entrances) {
+            entrance.join();
+        }
+        checkout.advanceTo(24 * 60 * 60 - 1);
+
+        long withItems = customers.stream().filter(c -> c.getNumberOfItems() > 0).count();
+        assertEquals(withItems, checkout.getNumberOfAssignments());
+        int served = 0;
+        for (Cashier cashier : cashiers) {
+            served += cashier.getAmountOfServedCustomers();
+            assertTrue(cashier.getWaitingQueue().isEmpty());
+        }
+        assertEquals(withItems, served);
+
+        // exactly the published customers have been served, by the cashier that they have been assigned to
+        for (Cashier cashier : cashiers) {
+            int assigned = 0;
+            long totalWaitingTime = 0;
+            for (int i = 0; i < customers.size(); i++) {
+                Customer customer = customers.get(i);
+                if (customer.getNumberOfItems() == 0) {
+                    assertNull(selected[i]);
+                    assertEquals(-1, customer.getActualWaitingTime());
+                } else if (selected[i] == cashier) {
+                    assigned++;
+                    totalWaitingTime += customer.getActualWaitingTime();
+                    assertThat(customer.getActualWaitingTime(), is(greaterThanOrEqualTo(0)));
+                    assertThat((double) customer.getActualWaitingTime(), is(lessThanOrEqualTo(cashier.getMaxWaitingTime())));
+                    assertEquals(cashier.expectedCheckOutTime(customer.getNumberOfItems()),
+                            customer.getActualCheckOutTime());
+                }
+            }
+            assertEquals(assigned, cashier.getAmountOfServedCustomers());
+            assertEquals(assigned, cashier.getWaitingTimes().getTotalCount());
+            assertFalse(cashier.isBusy());
+            if (assigned > 0) {
+                assertThat(cashier.getAverageWaitingTime(), is(closeTo((double) totalWaitingTime / assigned, 0.0001)));
+            }
+        }
+    }
+
+    @Test
+    void t079_realTimeLanesAreSelectedLikeSelectCashier() {
+        supermarket1.addRandomCustomers(3000, 4, 11L);
+        List<Customer> customers = new ArrayList<>(supermarket1.getCustomers());
+        customers.sort(Comparator.comparing(Customer::getQueuedAt));
+        customers.removeIf(customer -> customer.getNumberOfItems() == 0);
+
+        // the customers select their cashiers one by one in order of arrival, as in the batch simulation
+        List<Cashier> batchCashiers = List.of(new FIFOCashier("FIFO-1"), new PriorityCashier("PRIO-1", 5),
+                new FIFOCashier("FIFO-2"), new PriorityCashier("PRIO-2", 8));
+        batchCashiers.forEach(cashier -> cashier.reStart(supermarket1.getOpenTime()));
+        int[] batchSelection = new int[customers.size()];
+        for (int i = 0; i < customers.size(); i++) {
+            Customer customer = customers.get(i);
+            batchCashiers.forEach(cashier -> cashier.doTheWorkUntil(customer.getQueuedAt()));
+            Cashier cashier = customer.selectCashier(batchCashiers);
+            batchSelection[i] = batchCashiers.indexOf(cashier);
+            cashier.add(customer);
+        }
+
+        // the snapshots of the lanes account for the priority lanes of the priority cashiers
+        List<Cashier> cashiers = List.of(new FIFOCashier("FIFO-1"), new PriorityCashier("PRIO-1", 5),
+                new FIFOCashier("FIFO-2"), new PriorityCashier("PRIO-2", 8));
+        RealTimeCheckout checkout = new RealTimeCheckout(cashiers, supermarket1.getOpenTime());
+        assertTrue(cashiers.get(0).getWaitingQueue() instanceof ConcurrentLinkedQueue);
+        for (int i = 0; i < customers.size(); i++) {
+            assertEquals(batchSelection[i], cashiers.indexOf(checkout.publish(customers.get(i))),
+                    "Customer " + i + " has selected another lane");
+        }
+
+        // only the customers that have arrived by the given time are taken into the queues
+        int noon = LocalTime.NOON.toSecondOfDay();
+        checkout.advanceTo(noon);
+        long arrivedByNoon = customers.stream().filter(c -> c.getQueuedAt().toSecondOfDay() <= noon).count();
+        assertEquals(arrivedByNoon, cashiers.stream().mapToInt(Cashier::getAmountOfServedCustomers).sum());
+        checkout.advanceTo(24 * 60 * 60 - 1);
+        assertEquals(customers.size(), cashiers.stream().mapToInt(Cashier::getAmountOfServedCustomers).sum());
+        batchCashiers.forEach(cashier -> cashier.doTheWorkUntil(24 * 60 * 60 - 1));
+        for (int c = 0; c < cashiers.size(); c++) {
+            assertEquals(batchCashiers.get(c).getAmountOfServedCustomers(), cashiers.get(c).getAmountOfServedCustomers());
+            assertEquals(batchCashiers.get(c).getTotalIdleTime(), cashiers.get(c).getTotalIdleTime());
+            assertEquals(batchCashiers.get(c).getAverageWaitingTime(), cashiers.get(c).getAverageWaitingTime(), 0.0001);
+        }
+    }
+
+    @Test
+    void t068_timeSeriesSamplesTheCashiers() throws IOException {
+        if (this.fifoCashier1 == null) return;
+        supermarket5.getCashiers().add(this.fifoCashier1);
+        TimeSeriesRecorder recorder = new TimeSeriesRecorder(supermarket5.getCashiers(), 60, 1000);
+        supermarket5.setTimeSeriesRecorder(recorder);
+        supermarket5.simulateCashiers();
+        int simulatedSeconds = supermarket5.getClosingTime().toSecondOfDay() + 15 * 60
+                - supermarket5.getOpenTime().toSecondOfDay();
+        assertEquals(simulatedSeconds / 60 + 1, recorder.getNumberOfSamples());
+        assertEquals(supermarket5.getOpenTime().toSecondOfDay(), recorder.getSampleTime(0));
+        int maxQueueLength = 0;
+        for (int s = 0; s < recorder.getNumberOfSamples(); s++) {
+            maxQueueLength = Math.max(maxQueueLength, recorder.getQueueLength(0, s));
+            assertEquals(recorder.isBusy(0, s), recorder.getBacklogSeconds(0, s) > 0);
+        }
+        assertThat(maxQueueLength, is(lessThanOrEqualTo(this.fifoCashier1.getMaxQueueLength())));
+        assertThat(maxQueueLength, is(greaterThan(0)));
+
+        File file = File.createTempFile("jambi5", ".csv");
+        try {
+            recorder.exportCSV(file.getPath());
+            assertEquals(1 + recorder.getNumberOfSamples(), Files.readAllLines(file.toPath()).size());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    void t069_metricsAreOnlyCollectedWhenEnabled() {
+        if (this.fifoCashier1 == null) return;
+        SimulationMetrics metrics = SimulationMetrics.getInstance();
+        long eventsBefore = metrics.getEventsProcessed();
+        supermarket5.getCashiers().add(this.fifoCashier1);
+        supermarket5.simulateCashiers();
+        if (SimulationMetrics.ENABLED) {
+            assertThat(metrics.getEventsProcessed(), is(greaterThan(eventsBefore)));
+        } else {
+            assertEquals(0, metrics.getEventsProcessed());
+            assertEquals(0, metrics.getCashierSelections());
+        }
+        assertThat(metrics.getSummary(), startsWith("{\"enabled\":" + SimulationMetrics.ENABLED + ","));
+    }
+
+    @Test
+    void t070_selectionPoliciesCanBeCompared() {
+        supermarket1.addRandomCustomers(500, 4, 11L);
+        Supplier<List<Cashier>> cashiers = () -> List.of(new FIFOCashier("FIFO-1"), new FIFOCashier("FIFO-2"),
+                new FIFOCashier("FIFO-3"), new PriorityCashier("PRIO", 5));
+        List<ScenarioResult> results = new ScenarioRunner(this.supermarket1)
+                .addScenario("MIN-WAIT", cashiers)
+                .addScenario("JSQ", cashiers, CashierSelectionPolicy::joinShortestQueue)
+                .addScenario("P2C", cashiers, () -> CashierSelectionPolicy.powerOfTwoChoices(3L))
+                .addScenario("P2C-AGAIN", cashiers, () -> CashierSelectionPolicy.powerOfTwoChoices(3L))
+                .addScenario("NEAREST", cashiers, () -> CashierSelectionPolicy.nearestLane(1, 10))
+                .runAll();
+        int withItems = (int) supermarket1.getCustomers().stream().filter(c -> c.getNumberOfItems() > 0).count();
+        for (ScenarioResult result : results) {
+            assertEquals(withItems, result.getNumberOfCustomers(), result.getName());
+        }
+        assertEquals(results.get(2).getTotalIdleTime(), results.get(3).getTotalIdleTime());
+        assertEquals(results.get(2).getAverageWaitingTime(), results.get(3).getAverageWaitingTime());
+        assertThat(results.get(0).getAverageWaitingTime(),
+                is(lessThanOrEqualTo(results.get(1).getAverageWaitingTime())));
+
+        List<Customer> shoppers = supermarket5.getCustomers().stream()
+                .filter(c -> c.getNumberOfItems() > 0).collect(Collectors.toList());
+        Customer customer = shoppers.get(0);
+        Cashier idle = new FIFOCashier("IDLE");
+        Cashier busy = new FIFOCashier("BUSY");
+        busy.add(shoppers.get(1));
+        busy.add(shoppers.get(2));
+        assertSame(idle, CashierSelectionPolicy.joinShortestQueue().selectCashier(customer, List.of(busy, idle)));
+        assertSame(busy, CashierSelectionPolicy.powerOfTwoChoices(1L).selectCashier(customer, List.of(busy)));
+        assertNull(CashierSelectionPolicy.nearestLane(0, 10).selectCashier(customer, List.of()));
+        assertSame(busy, CashierSelectionPolicy.nearestLane(0, 1000).selectCashier(customer, List.of(busy, idle)));
+    }
+
+    @Test
+    void t071_indexedSelectionMatchesMinimumWaitingTime() {
+        supermarket1.addRandomCustomers(20000, 4, 13L);
+        Supplier<List<Cashier>> cashiers = () -> {
+            List<Cashier> lanes = new ArrayList<>();
+            for (int c = 0; c < 60; c++) {
+                lanes.add(c % 3 == 0 ? new FIFOCashier("FIFO-" + c) : new PriorityCashier("PRIO-" + c, c % 3 == 1 ? 5 : 10));
+            }
+            return lanes;
+        };
+        List<ScenarioResult> results = new ScenarioRunner(this.supermarket1)
+                .addScenario("SCAN", cashiers)
+                .addScenario("INDEX", cashiers, CashierSelectionPolicy::indexedMinimumWaitingTime)
+                .runAll();
+        List<Cashier> scanned = results.get(0).getCashiers();
+        List<Cashier> indexed = results.get(1).getCashiers();
+        for (int c = 0; c < scanned.size(); c++) {
+            assertEquals(scanned.get(c).getAmountOfServedCustomers(), indexed.get(c).getAmountOfServedCustomers());
+            assertEquals(scanned.get(c).getTotalIdleTime(), indexed.get(c).getTotalIdleTime());
+            assertEquals(scanned.get(c).getMaxWaitingTime(), indexed.get(c).getMaxWaitingTime());
+        }
+    }
+
+    @Test
+    void t077_indexedPoliciesMatchTheirScans() {
+        supermarket1.addRandomCustomers(20000, 4, 29L);
+        Supplier<List<Cashier>> cashiers = () -> {
+            List<Cashier> lanes = new ArrayList<>();
+            for (int c = 0; c < 40; c++) {
+                lanes.add(c % 4 == 0 ? new PriorityCashier("PRIO-" + c, 5) : new FIFOCashier("FIFO-" + c));
+            }
+            return lanes;
+        };
+        List<ScenarioResult> results = new ScenarioRunner(this.supermarket1)
+                .addScenario("JSQ-SCAN", cashiers, () -> (customer, lanes) -> {
+                    Cashier selected = null;
+                    for (Cashier cashier : lanes) {
+                        if (selected == null || cashier.getQueueLength() < selected.getQueueLength()) {
+                            selected = cashier;
+                        }
+                    }
+                    return selected;
+                })
+                .addScenario("JSQ", cashiers, CashierSelectionPolicy::joinShortestQueue)
+                .addScenario("NEAREST-SCAN", cashiers, () -> (customer, lanes) -> {
+                    // searches outwards from lane 25, the lane before the entrance first
+                    Cashier selected = null;
+                    int shortestTime = Integer.MAX_VALUE;
+                    for (int distance = 0; distance < lanes.size(); distance++) {
+                        for (int lane : new int[]{25 - distance, 25 + distance}) {
+                            if (lane < 0 || lane >= lanes.size()) continue;
+                            int time = distance * 3 + lanes.get(lane).expectedWaitingTime(customer);
+                            if (time < shortestTime) {
+                                selected = lanes.get(lane);
+                                shortestTime = time;
+                            }
+                        }
+                    }
+                    return selected;
+                })
+                .addScenario("NEAREST", cashiers, () -> CashierSelectionPolicy.nearestLane(25, 3))
+                .runAll();
+        for (int r = 0; r < results.size(); r += 2) {
+            List<Cashier> scanned = results.get(r).getCashiers();
+            List<Cashier> indexed = results.get(r + 1).getCashiers();
+            for (int c = 0; c < scanned.size(); c++) {
+                assertEquals(scanned.get(c).getAmountOfServedCustomers(), indexed.get(c).getAmountOfServedCustomers());
+                assertEquals(scanned.get(c).getTotalIdleTime(), indexed.get(c).getTotalIdleTime());
+                assertEquals(scanned.get(c).getMaxWaitingTime(), indexed.get(c).getMaxWaitingTime());
+            }
+        }
+
+        // every copy gets its own new policy, so copies with the same random policy have the same results
+        supermarket1.setSelectionPolicy(() -> CashierSelectionPolicy.powerOfTwoChoices(5L));
+        Supermarket first = supermarket1.copyForSimulation("FIRST", cashiers.get());
+        Supermarket second = supermarket1.copyForSimulation("SECOND", cashiers.get());
+        first.simulateCashiers();
+        second.simulateCashiers();
+        for (int c = 0; c < first.getCashiers().size(); c++) {
+            assertEquals(first.getCashiers().get(c).getAmountOfServedCustomers(),
+                    second.getCashiers().get(c).getAmountOfServedCustomers());
+        }
+    }
+
+    @Test
+    void t072_replicationsAreReproducibleAndStopEarly() {
+        ReplicationEngine engine = new ReplicationEngine(this.supermarket5,
+                () -> List.of(new FIFOCashier("FIFO-1"), new PriorityCashier("PRIO-1", 5)), 200, 4);
+        ReplicationResult fixed = engine.run(17L, 100);
+        assertEquals(100, fixed.getNumberOfReplications());
+        assertEquals(List.of("FIFO-1", "PRIO-1"), fixed.getCashierNames());
+        assertEquals(200, fixed.getCashierCustomers(0).getMean() + fixed.getCashierCustomers(1).getMean(), 1e-9);
+        assertThat(fixed.getAverageWaitingTime().getHalfWidth(), is(greaterThan(0.0)));
+        assertThat(fixed.getAverageWaitingTime().getMean(),
+                is(lessThanOrEqualTo(fixed.getP95WaitingTime().getMean())));
+
+        ReplicationResult again = engine.run(17L, 100);
+        assertEquals(fixed.getAverageWaitingTime().getMean(), again.getAverageWaitingTime().getMean());
+        assertEquals(fixed.getAverageWaitingTime().getHalfWidth(), again.getAverageWaitingTime().getHalfWidth());
+
+        ReplicationResult early = engine.run(17L, 10000, 0.5);
+        assertThat(early.getNumberOfReplications(), is(lessThan(10000L)));
+        assertThat(early.getAverageWaitingTime().getRelativeHalfWidth(), is(lessThanOrEqualTo(0.5)));
+
+        // with more cashiers than customers nobody waits, which should not end the replications early
+        List<Cashier> manyCashiers = new ArrayList<>();
+        for (int c = 0; c < 10; c++) {
+            manyCashiers.add(new FIFOCashier("FIFO-" + c));
+        }
+        ReplicationEngine idle = new ReplicationEngine(this.supermarket5,
+                () -> manyCashiers.stream().map(Cashier::copy).collect(Collectors.toList()), 5, 4);
+        ReplicationResult zeroVariance = idle.run(17L, 100);
+        assertEquals(0.0, zeroVariance.getAverageWaitingTime().getMean());
+        assertEquals(0.0, zeroVariance.getAverageWaitingTime().getHalfWidth());
+        assertEquals(100, zeroVariance.getNumberOfReplications());
+    }
+
+    @Test
+    void t073_staffingOptimizerFindsTheCheapestMix() {
+        Supermarket dataset = Supermarket.importFromXML("jambi250_8.xml");
+        dataset.addRandomCustomers(3000, 4, 5L);
+        StaffingOptimizer optimizer = new StaffingOptimizer(dataset, 120)
+                .setMaxLanes(12)
+                .setMaxPriorityItems(5, 10)
+                .setLaneCosts(1.0, 0.9);
+        StaffingPlan plan = optimizer.optimize();
+        assertNotNull(plan);
+        assertThat(plan.getP95WaitingTime(), is(lessThanOrEqualTo(120)));
+        assertEquals(plan.getFifoLanes() * 1.0 + plan.getPriorityLanes() * 0.9, plan.getCost(), 1e-9);
+        // far less than the 13 x 13 configurations per priority limit
+        assertThat(optimizer.getNumberOfEvaluations(), is(lessThan(100)));
+
+        // a lane less does not meet the target
+        int fifoLanes = plan.getFifoLanes() > 0 ? plan.getFifoLanes() - 1 : 0;
+        int priorityLanes = plan.getFifoLanes() > 0 ? plan.getPriorityLanes() : plan.getPriorityLanes() - 1;
+        ScenarioResult fewer = new ScenarioRunner(dataset).addScenario("FEWER", () -> {
+            List<Cashier> cashiers = new ArrayList<>();
+            for (int c = 0; c < fifoLanes; c++) cashiers.add(new FIFOCashier("FIFO-" + c));
+            for (int c = 0; c < priorityLanes; c++) cashiers.add(new PriorityCashier("PRIO-" + c, plan.getMaxPriorityItems()));
+            return cashiers;
+        }).runAll().get(0);
+        assertThat(fewer.getWaitingTimes().getValueAtPercentile(95), is(greaterThan(120)));
+
+        assertNull(new StaffingOptimizer(dataset, 0).setMaxLanes(2).optimize());
+        assertThrows(IllegalArgumentException.class, () -> new StaffingOptimizer(dataset, 0).setMaxPriorityItems());
+    }
+
+    @Test
+    void t074_branchesContinueFromACheckpoint() {
+        Supermarket whole = Supermarket.importFromXML("jambi250_8.xml");
+        whole.getCashiers().addAll(List.of(new FIFOCashier("FIFO-1"), new PriorityCashier("PRIO-1", 5)));
+        whole.simulateCashiers();
+
+        Supermarket trunk = Supermarket.importFromXML("jambi250_8.xml");
+        trunk.getCashiers().addAll(List.of(new FIFOCashier("FIFO-1"), new PriorityCashier("PRIO-1", 5)));
+        LocalTime checkpointTime = trunk.getOpenTime().plusSeconds(
+                (trunk.getClosingTime().toSecondOfDay() - trunk.getOpenTime().toSecondOfDay()) / 2);
+        SimulationCheckpoint checkpoint = trunk.simulateUntil(checkpointTime);
+        assertEquals(checkpointTime.toSecondOfDay(), checkpoint.getTime());
+        assertThat(checkpoint.getPendingArrivals(), is(greaterThan(0)));
+
+        // an unchanged branch ends the same as simulating the whole day
+        Supermarket unchanged = trunk.simulateBranch("UNCHANGED", checkpoint, List.of());
+        for (int c = 0; c < 2; c++) {
+            Cashier expected = whole.getCashiers().get(c);
+            Cashier actual = unchanged.getCashiers().get(c);
+            assertEquals(expected.getAmountOfServedCustomers(), actual.getAmountOfServedCustomers());
+            assertEquals(expected.getTotalIdleTime(), actual.getTotalIdleTime());
+            assertEquals(expected.getWaitingTimes().getMean(), actual.getWaitingTimes().getMean());
+            assertEquals(expected.getMaxQueueLength(), actual.getMaxQueueLength());
+        }
+
+        // an extra lane takes customers from the second half of the day only
+        Supermarket extraLane = trunk.simulateBranch("EXTRA", checkpoint, List.of(new FIFOCashier("FIFO-2")));
+        assertEquals(3, extraLane.getCashiers().size());
+        assertThat(extraLane.getCashiers().get(2).getAmountOfServedCustomers(), is(greaterThan(0)));
+        assertEquals(new ScenarioResult("", whole.getCashiers()).getNumberOfCustomers(),
+                new ScenarioResult("", extraLane.getCashiers()).getNumberOfCustomers());
+
+        // a closed lane only serves the customers that were at the lane at the checkpoint
+        Cashier prio = checkpoint.getCashiers().get(1);
+        Supermarket closedLane = trunk.simulateBranch("CLOSED", checkpoint, List.of(), Set.of("PRIO-1"));
+        assertEquals(prio.getAmountOfServedCustomers(), closedLane.getCashiers().get(1).getAmountOfServedCustomers());
+        assertEquals(prio.getWaitingTimes().getTotalCount() + prio.getQueueLength(),
+                closedLane.getCashiers().get(1).getWaitingTimes().getTotalCount());
+
+        // branches do not change the checkpoint
+        assertEquals(unchanged.getCashiers().get(0).getTotalIdleTime(),
+                trunk.simulateBranch("AGAIN", checkpoint, List.of()).getCashiers().get(0).getTotalIdleTime());
+    }
+
+    @Test
+    void t075_arrivalIndexIsStableAndShared() {
+        supermarket1.addRandomCustomers(5000, 4, 19L);
+        List<Customer> customers = supermarket1.getCustomers();
+        ArrivalIndex index = supermarket1.getArrivalIndex();
+        assertEquals(customers.size(), index.size());
+        for (int i = 1; i < index.size(); i++) {
+            int previous = customers.get(index.getCustomer(i - 1)).getQueuedAt().toSecondOfDay();
+            int current = customers.get(index.getCustomer(i)).getQueuedAt().toSecondOfDay();
+            assertThat(previous, is(lessThanOrEqualTo(current)));
+            assertEquals(current, index.getArrivalSecondOfDay(i));
+            if (previous == current) {
+                // customers arriving at the same time keep their order in the dataset
+                assertThat(index.getCustomer(i - 1), is(lessThan(index.getCustomer(i))));
+            }
+        }
+        assertSame(index, supermarket1.getArrivalIndex());
+        assertSame(index, supermarket1.copyForSimulation("COPY", List.of()).getArrivalIndex());
+
+        supermarket1.addRandomCustomers(10, 4, 23L);
+        assertEquals(customers.size(), supermarket1.getArrivalIndex().size());
+
+        CustomerStore store = new CustomerStore(supermarket1.getProducts());
+        customers.forEach(store::add);
+        assertArrayEquals(supermarket1.getArrivalIndex().toArray(), store.sortedByArrival());
+    }
+
+    @Test
+    void t078_arrivalIndexFollowsChangedCustomers() {
+        List<Customer> customers = supermarket5.getCustomers();
+        ArrivalIndex index = supermarket5.getArrivalIndex();
+        int firstArrival = index.getCustomer(0);
+
+        // replacing a customer keeps the number of customers, but changes the order of arrival
+        Customer late = new Customer(LocalTime.ofSecondOfDay(index.getArrivalSecondOfDay(index.size() - 1) + 60),
+                "1000AA");
+        late.getItems().addAll(customers.get(firstArrival).getItems());
+        customers.set(firstArrival, late);
+        ArrivalIndex replaced = supermarket5.getArrivalIndex();
+        assertNotSame(index, replaced);
+        assertEquals(customers.size(), replaced.size());
+        assertEquals(firstArrival, replaced.getCustomer(replaced.size() - 1));
+        assertEquals(late.getQueuedAt().toSecondOfDay(), replaced.getArrivalSecondOfDay(replaced.size() - 1));
+        assertSame(replaced, supermarket5.copyForSimulation("COPY", List.of()).getArrivalIndex());
+
+        // swapping customers changes the positions of the customers in the index
+        Collections.swap(customers, 0, customers.size() - 1);
+        CustomerStore store = new CustomerStore(supermarket5.getProducts());
+        customers.forEach(store::add);
+        assertArrayEquals(store.sortedByArrival(), supermarket5.getArrivalIndex().toArray());
+        assertSame(supermarket5.getArrivalIndex(), supermarket5.getArrivalIndex());
+
+        // a simulation lets the late customer arrive last, like in a supermarket that never had an index
+        Supermarket reference = new Supermarket("REFERENCE", supermarket5.getOpenTime(), supermarket5.getClosingTime());
+        customers.forEach(customer -> reference.getCustomers().add(new Customer(customer)));
+        reference.getCashiers().add(new FIFOCashier("FIFO-1"));
+        reference.simulateCashiers();
+        supermarket5.getCashiers().add(new FIFOCashier("FIFO-1"));
+        supermarket5.simulateCashiers();
+        Cashier expected = reference.getCashiers().get(0);
+        assertEquals(expected.getTotalIdleTime(), supermarket5.getCashiers().get(0).getTotalIdleTime());
+        assertEquals(expected.getMaxWaitingTime(), supermarket5.getCashiers().get(0).getMaxWaitingTime());
+        assertThat(late.getActualCheckOutTime(), is(greaterThan(0)));
+    }
+
+    @Test
+    void t076_eventsAreProcessedByTimeKindAndSequence() {
+        if (fifoCashier1 == null) return;
+        Product product = new Product("A001", "Any-1", 1.0);
+        Customer first = new Customer(LocalTime.NOON, "1000AA");
+        first.getItems().add(new Purchase(product, 1));
+        Customer second = new Customer(LocalTime.NOON.plusSeconds(22), "1000AB");
+        second.getItems().add(new Purchase(product, 1));
+        Customer third = new Customer(LocalTime.NOON.plusSeconds(22), "1000AC");
+        third.getItems().add(new Purchase(product, 1));
+
+        // the calendar orders by time, then completions before arrivals, then by scheduling order
+        int noon = LocalTime.NOON.toSecondOfDay();
+        SimulationEvent lateArrival = SimulationEvent.arrival(third, 1);
+        SimulationEvent earlyArrival = SimulationEvent.arrival(second, 2);
+        SimulationEvent completion = SimulationEvent.completion(fifoCashier1, noon + 22, 3);
+        SimulationEvent earlyCompletion = SimulationEvent.completion(fifoCashier1, noon + 21, 4);
+        PriorityQueue<SimulationEvent> calendar = new PriorityQueue<>(
+                List.of(earlyArrival, completion, lateArrival, earlyCompletion));
+        assertSame(earlyCompletion, calendar.poll());
+        assertSame(completion, calendar.poll());
+        assertSame(lateArrival, calendar.poll());
+        assertSame(earlyArrival, calendar.poll());
+
+        // a cashier that finishes at the arrival time is free for the arriving customers,
+        // who are served in the order in which they have been scheduled
+        CheckoutSimulator simulator = new CheckoutSimulator(List.of(fifoCashier1), LocalTime.NOON);
+        simulator.scheduleArrival(first);
+        simulator.scheduleArrival(second);
+        simulator.scheduleArrival(third);
+        simulator.processNextArrival();
+        assertEquals(2, simulator.getPendingArrivals());
+        simulator.closeAt(noon + 100);
+        assertEquals(0, simulator.getPendingArrivals());
+        assertEquals(0, first.getActualWaitingTime());
+        assertEquals(0, second.getActualWaitingTime());
+        assertEquals(22, third.getActualWaitingTime());
+        assertEquals(2, fifoCashier1.getMaxQueueLength());
+        assertEquals(100 - 3 * 22, fifoCashier1.getTotalIdleTime());
+    }
+
     private void t060_oneCashierSimulation(Supermarket supermarket, Cashier cashier,
                                                int totalIdleTime, int maxQueueLength) {
         if (cashier == null) return;